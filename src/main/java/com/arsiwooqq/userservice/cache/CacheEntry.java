@@ -0,0 +1,9 @@
+package com.arsiwooqq.userservice.cache;
+
+public record CacheEntry(CacheKey key, Object value, long version) {
+    public static final long UNVERSIONED = -1;
+
+    public static CacheEntry of(CacheKey key, Object value) {
+        return new CacheEntry(key, value, UNVERSIONED);
+    }
+}
@@ -0,0 +1,43 @@
+package com.arsiwooqq.userservice.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidationListener implements MessageListener {
+    private final CacheManager cacheManager;
+
+    @Override
+    public void onMessage(@NonNull Message message, @Nullable byte[] pattern) {
+        var body = new String(message.getBody(), StandardCharsets.UTF_8);
+        for (var entry : body.split(CacheInvalidationPublisher.LINE_SEPARATOR)) {
+            invalidateLocal(entry);
+        }
+    }
+
+    private void invalidateLocal(String entry) {
+        var separator = entry.indexOf(CacheInvalidationPublisher.SEPARATOR);
+        var cacheName = separator < 0 ? entry : entry.substring(0, separator);
+
+        if (cacheManager.getCache(cacheName) instanceof TwoLevelCache cache) {
+            if (separator < 0) {
+                log.debug("Clearing local cache {}", cacheName);
+                cache.clearLocal();
+            } else {
+                var key = entry.substring(separator + CacheInvalidationPublisher.SEPARATOR.length());
+                log.debug("Evicting key {} from local cache {}", key, cacheName);
+                cache.evictLocal(key);
+            }
+        }
+    }
+}
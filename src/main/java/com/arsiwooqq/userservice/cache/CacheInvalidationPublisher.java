@@ -0,0 +1,51 @@
+package com.arsiwooqq.userservice.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidationPublisher {
+    public static final String TOPIC = "user-service:cache-invalidation";
+    public static final String SEPARATOR = "::";
+    public static final String LINE_SEPARATOR = "\n";
+
+    private final StringRedisTemplate redisTemplate;
+
+    public void publishEvict(String cacheName, String key) {
+        publishEvict(List.of(new CacheKey(cacheName, key)));
+    }
+
+    public void publishEvict(Collection<CacheKey> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        publish(toMessage(keys));
+    }
+
+    public static String toMessage(Collection<CacheKey> keys) {
+        return keys.stream()
+                .map(key -> key.cacheName() + SEPARATOR + key.key())
+                .collect(Collectors.joining(LINE_SEPARATOR));
+    }
+
+    public void publishClear(String cacheName) {
+        publish(cacheName);
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(TOPIC, message);
+        } catch (RuntimeException e) {
+            // Local entries on other instances will expire on their own
+            log.warn("Failed to publish cache invalidation {}: {}", message, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.arsiwooqq.userservice.cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Evicts several keys, possibly from different caches, with a single pipelined Redis DEL + PUBLISH,
+    so related entries (e.g. a user and its email index) disappear together.
+    Inside a transaction keys are collected and evicted once it commits, so a concurrent reader
+    cannot re-cache the old row between the eviction and the commit.
+    After a commit local entries are dropped right away and the Redis round trip is left to a single
+    background thread, so the request does not wait for Redis.
+    Batches that fail are kept in a bounded queue and retried in the background.
+    Write-through replaces entries instead and tells other instances to drop their local copies.
+    It runs on the same background thread, a value that cannot be written there is evicted instead.
+    Versioned entries can be evicted at a version: their version marker is raised to it as well,
+    so a reader that loaded the old row cannot put it back (see VersionedCacheWriter).
+ */
+@Component
+@Slf4j
+public class CacheInvalidator {
+    private final CacheManager cacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final VersionedCacheWriter versionedCacheWriter;
+    private final BlockingQueue<Batch> retryQueue;
+    private final ExecutorService executor;
+
+    @Autowired
+    public CacheInvalidator(CacheManager cacheManager,
+                            StringRedisTemplate redisTemplate,
+                            VersionedCacheWriter versionedCacheWriter,
+                            @Value("${app.cache.invalidation.retry-capacity:1000}") int retryCapacity,
+                            @Value("${app.cache.invalidation.queue-capacity:1000}") int queueCapacity) {
+        // one thread keeps batches in commit order
+        this(cacheManager, redisTemplate, versionedCacheWriter, retryCapacity, new ThreadPoolExecutor(1, 1,
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("cache-invalidation-")));
+    }
+
+    CacheInvalidator(CacheManager cacheManager,
+                     StringRedisTemplate redisTemplate,
+                     VersionedCacheWriter versionedCacheWriter,
+                     int retryCapacity,
+                     ExecutorService executor) {
+        this.cacheManager = cacheManager;
+        this.redisTemplate = redisTemplate;
+        this.versionedCacheWriter = versionedCacheWriter;
+        this.retryQueue = new ArrayBlockingQueue<>(retryCapacity);
+        this.executor = executor;
+    }
+
+    public void evict(CacheKey... keys) {
+        evict(List.of(keys));
+    }
+
+    public void evict(List<CacheKey> keys) {
+        evict(keys, Map.of());
+    }
+
+    public void evict(List<CacheKey> keys, long version) {
+        var versions = new HashMap<CacheKey, Long>(keys.size());
+        keys.forEach(key -> versions.put(key, version));
+        evict(keys, versions);
+    }
+
+    private void evict(List<CacheKey> keys, Map<CacheKey, Long> versions) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            flush(keys, versions, keys);
+            return;
+        }
+
+        var pending = (PendingEvictions) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingEvictions();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.keys.addAll(keys);
+        versions.forEach((key, version) -> pending.versions.merge(key, version, Math::max));
+    }
+
+    public void writeThrough(List<CacheEntry> entries, List<CacheKey> evictions) {
+        var keys = new ArrayList<CacheKey>(entries.size() + evictions.size());
+        entries.forEach(entry -> keys.add(entry.key()));
+        keys.addAll(evictions);
+        // this instance must not serve the old values while the new ones are written
+        evictLocal(keys, Map.of(), List.of());
+
+        try {
+            executor.execute(() -> write(entries, evictions));
+        } catch (RejectedExecutionException e) {
+            var batch = evictLocal(keys, versionsOf(entries), keys);
+            if (batch != null) {
+                retry(batch, e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.retry-interval:1000}")
+    public void retryFailed() {
+        Batch batch;
+        while ((batch = retryQueue.peek()) != null) {
+            try {
+                send(batch);
+            } catch (RuntimeException e) {
+                log.debug("Cache invalidation retry failed: {}", e.getMessage());
+                return;
+            }
+            retryQueue.poll();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void write(List<CacheEntry> entries, List<CacheKey> evictions) {
+        var deletions = new ArrayList<CacheKey>(evictions);
+        var versions = new HashMap<CacheKey, Long>();
+        var published = new ArrayList<CacheKey>(entries.size() + evictions.size());
+        for (var entry : entries) {
+            var key = entry.key();
+            try {
+                if (entry.version() != CacheEntry.UNVERSIONED) {
+                    versionedCacheWriter.put(key.cacheName(), key.key(), entry.value(), entry.version());
+                    published.add(key);
+                    continue;
+                }
+
+                var cache = cacheManager.getCache(key.cacheName());
+                if (cache != null) {
+                    cache.put(key.key(), entry.value());
+                    published.add(key);
+                }
+            } catch (RuntimeException e) {
+                // the old value must not outlive the change, so it goes the eviction way, retries included
+                log.warn("Failed to write through cache key {}, evicting it: {}", key, e.getMessage());
+                deletions.add(key);
+                if (entry.version() != CacheEntry.UNVERSIONED) {
+                    versions.put(key, entry.version());
+                }
+            }
+        }
+        published.addAll(deletions);
+        flush(deletions, versions, published);
+    }
+
+    private Map<CacheKey, Long> versionsOf(List<CacheEntry> entries) {
+        var versions = new HashMap<CacheKey, Long>();
+        for (var entry : entries) {
+            if (entry.version() != CacheEntry.UNVERSIONED) {
+                versions.put(entry.key(), entry.version());
+            }
+        }
+        return versions;
+    }
+
+    private void flush(List<CacheKey> deletions, Map<CacheKey, Long> versions, List<CacheKey> published) {
+        var batch = evictLocal(deletions, versions, published);
+        if (batch != null) {
+            sendOrRetry(batch);
+        }
+    }
+
+    private void flushInBackground(List<CacheKey> keys, Map<CacheKey, Long> versions) {
+        var batch = evictLocal(keys, versions, keys);
+        if (batch == null) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> sendOrRetry(batch));
+        } catch (RejectedExecutionException e) {
+            retry(batch, e);
+        }
+    }
+
+    // Drops local entries and returns what is left to send to Redis, null when there is nothing
+    private Batch evictLocal(List<CacheKey> deletions, Map<CacheKey, Long> versions, List<CacheKey> published) {
+        var redisKeys = new ArrayList<String>(deletions.size());
+        var redisVersions = new LinkedHashMap<String, Long>();
+        for (var key : deletions) {
+            var cache = cacheManager.getCache(key.cacheName());
+            if (cache instanceof TwoLevelCache twoLevelCache) {
+                twoLevelCache.evictLocal(key.key());
+                var redisKey = twoLevelCache.getRemoteKey(key.key());
+                redisKeys.add(redisKey);
+                var version = versions.get(key);
+                if (version != null) {
+                    redisVersions.put(redisKey, version);
+                }
+            } else if (cache != null) {
+                cache.evict(key.key());
+            }
+        }
+
+        if (redisKeys.isEmpty() && published.isEmpty()) {
+            return null;
+        }
+        return new Batch(redisKeys, redisVersions, CacheInvalidationPublisher.toMessage(published));
+    }
+
+    private void sendOrRetry(Batch batch) {
+        try {
+            send(batch);
+        } catch (RuntimeException e) {
+            retry(batch, e);
+        }
+    }
+
+    private void retry(Batch batch, RuntimeException cause) {
+        if (retryQueue.offer(batch)) {
+            log.warn("Failed to evict cache keys {}, will retry: {}", batch.redisKeys(), cause.getMessage());
+        } else {
+            // Entries will expire on their own
+            log.error("Failed to evict cache keys {}, retry queue is full: {}", batch.redisKeys(), cause.getMessage());
+        }
+    }
+
+    private void send(Batch batch) {
+        log.debug("Evicting cache keys {}", batch.redisKeys());
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            batch.versions().forEach((key, version) -> versionedCacheWriter.raiseVersion(connection, key, version));
+            if (!batch.redisKeys().isEmpty()) {
+                connection.keyCommands().del(toBytes(batch.redisKeys()));
+            }
+            if (!batch.message().isEmpty()) {
+                publish(connection, batch.message());
+            }
+            return null;
+        });
+    }
+
+    private void publish(RedisConnection connection, String message) {
+        connection.publish(CacheInvalidationPublisher.TOPIC.getBytes(StandardCharsets.UTF_8),
+                message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private byte[][] toBytes(List<String> keys) {
+        var bytes = new byte[keys.size()][];
+        for (int i = 0; i < keys.size(); i++) {
+            bytes[i] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    private record Batch(List<String> redisKeys, Map<String, Long> versions, String message) {
+    }
+
+    private class PendingEvictions implements TransactionSynchronization {
+        private final Set<CacheKey> keys = new LinkedHashSet<>();
+        private final Map<CacheKey, Long> versions = new HashMap<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CacheInvalidator.this);
+            if (status == STATUS_COMMITTED) {
+                flushInBackground(List.copyOf(keys), Map.copyOf(versions));
+            }
+        }
+    }
+}
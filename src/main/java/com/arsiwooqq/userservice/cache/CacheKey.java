@@ -0,0 +1,7 @@
+package com.arsiwooqq.userservice.cache;
+
+public record CacheKey(
+        String cacheName,
+        String key
+) {
+}
@@ -0,0 +1,98 @@
+package com.arsiwooqq.userservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/*
+    Loads cache misses so that concurrent requests for the same key trigger one database read.
+    Within an instance callers share a single in-flight load. With the lease enabled, instances
+    also take a short Redis lease per key; the losers wait for the winner to fill the cache
+    and only fall back to loading themselves when it does not show up in time.
+ */
+@Component
+@Slf4j
+public class CoalescingLoader {
+    private static final String METRIC_NAME = "cache.loads.coalesced";
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(20);
+
+    private final SingleFlight<String, Object> singleFlight;
+    private final RedisLease lease;
+    private final Counter clusterCoalesced;
+    private final boolean leaseEnabled;
+    private final Duration leaseTimeToLive;
+    private final Duration leaseWait;
+
+    public CoalescingLoader(MeterRegistry meterRegistry,
+                            RedisLease lease,
+                            @Value("${app.cache.lease.enabled:false}") boolean leaseEnabled,
+                            @Value("${app.cache.lease.time-to-live:5s}") Duration leaseTimeToLive,
+                            @Value("${app.cache.lease.wait:200ms}") Duration leaseWait) {
+        this.singleFlight = new SingleFlight<>(meterRegistry.counter(METRIC_NAME, "scope", "local"));
+        this.clusterCoalesced = meterRegistry.counter(METRIC_NAME, "scope", "cluster");
+        this.lease = lease;
+        this.leaseEnabled = leaseEnabled;
+        this.leaseTimeToLive = leaseTimeToLive;
+        this.leaseWait = leaseWait;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T load(String namespace, String key, Supplier<T> cacheLookup, Supplier<T> loader) {
+        var name = namespace + CacheInvalidationPublisher.SEPARATOR + key;
+        return (T) singleFlight.execute(name, () -> {
+            // the previous load for this key may have finished right before we started
+            var cached = cacheLookup.get();
+            if (cached != null) {
+                return cached;
+            }
+            return leaseEnabled ? loadWithLease(name, cacheLookup, loader) : loader.get();
+        });
+    }
+
+    private <T> T loadWithLease(String name, Supplier<T> cacheLookup, Supplier<T> loader) {
+        String token;
+        try {
+            token = lease.tryAcquire(name, leaseTimeToLive);
+        } catch (RuntimeException e) {
+            log.warn("Failed to acquire cache load lease: {}", e.getMessage());
+            return loader.get();
+        }
+
+        if (token != null) {
+            try {
+                return loader.get();
+            } finally {
+                release(name, token);
+            }
+        }
+
+        var deadline = System.nanoTime() + leaseWait.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(POLL_INTERVAL.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            var cached = cacheLookup.get();
+            if (cached != null) {
+                clusterCoalesced.increment();
+                return cached;
+            }
+        }
+        return loader.get();
+    }
+
+    private void release(String name, String token) {
+        try {
+            lease.release(name, token);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release cache load lease: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.arsiwooqq.userservice.cache;
+
+import com.arsiwooqq.userservice.dto.CardResponse;
+import com.arsiwooqq.userservice.dto.UserResponse;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/*
+    Binary cache format: [format version][value type][fields in declaration order].
+    Values written with an unknown format version are reported as cache misses,
+    so instances running different versions can share Redis during a rolling upgrade.
+ */
+public class CompactCacheSerializer implements RedisSerializer<Object> {
+    public static final byte FORMAT_VERSION = 1;
+
+    private static final byte USER_RESPONSE = 1;
+    private static final byte CARD_RESPONSE = 2;
+
+    @Override
+    public byte[] serialize(@Nullable Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+
+        var bytes = new ByteArrayOutputStream(256);
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            if (value instanceof UserResponse user) {
+                out.writeByte(USER_RESPONSE);
+                writeUser(out, user);
+            } else if (value instanceof CardResponse card) {
+                out.writeByte(CARD_RESPONSE);
+                writeCard(out, card);
+            } else {
+                throw new SerializationException("Unsupported cache value type: " + value.getClass().getName());
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Could not write cache value", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    @Nullable
+    public Object deserialize(@Nullable byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0 || bytes[0] != FORMAT_VERSION) {
+            return null;
+        }
+
+        try (var in = new DataInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1))) {
+            return switch (in.readByte()) {
+                case USER_RESPONSE -> readUser(in);
+                case CARD_RESPONSE -> readCard(in);
+                default -> null;
+            };
+        } catch (IOException e) {
+            throw new SerializationException("Could not read cache value", e);
+        }
+    }
+
+    private void writeUser(DataOutput out, UserResponse user) throws IOException {
+        writeString(out, user.userId());
+        writeString(out, user.name());
+        writeString(out, user.surname());
+        writeDate(out, user.birthDate());
+        writeString(out, user.email());
+
+        if (user.cards() == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(user.cards().size());
+        for (var card : user.cards()) {
+            writeCard(out, card);
+        }
+    }
+
+    private UserResponse readUser(DataInput in) throws IOException {
+        var userId = readString(in);
+        var name = readString(in);
+        var surname = readString(in);
+        var birthDate = readDate(in);
+        var email = readString(in);
+
+        List<CardResponse> cards = null;
+        var cardCount = in.readInt();
+        if (cardCount >= 0) {
+            cards = new ArrayList<>(cardCount);
+            for (int i = 0; i < cardCount; i++) {
+                cards.add(readCard(in));
+            }
+        }
+        return new UserResponse(userId, name, surname, birthDate, email, cards);
+    }
+
+    private void writeCard(DataOutput out, CardResponse card) throws IOException {
+        writeUuid(out, card.id());
+        writeString(out, card.userId());
+        writeString(out, card.number());
+        writeString(out, card.holder());
+        writeDate(out, card.expirationDate());
+    }
+
+    private CardResponse readCard(DataInput in) throws IOException {
+        return new CardResponse(
+                readUuid(in),
+                readString(in),
+                readString(in),
+                readString(in),
+                readDate(in)
+        );
+    }
+
+    private void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private void writeDate(DataOutput out, LocalDate value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt((int) value.toEpochDay());
+        }
+    }
+
+    private LocalDate readDate(DataInput in) throws IOException {
+        return in.readBoolean() ? LocalDate.ofEpochDay(in.readInt()) : null;
+    }
+
+    private void writeUuid(DataOutput out, UUID value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getMostSignificantBits());
+            out.writeLong(value.getLeastSignificantBits());
+        }
+    }
+
+    private UUID readUuid(DataInput in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+}
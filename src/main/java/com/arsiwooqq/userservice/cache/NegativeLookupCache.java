@@ -0,0 +1,78 @@
+package com.arsiwooqq.userservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/*
+    Remembers lookups that found nothing for a short time,
+    so repeated requests for missing users and cards do not reach the database
+ */
+@Component
+@Slf4j
+public class NegativeLookupCache {
+    public static final String USER_ID = "user-id";
+    public static final String USER_EMAIL = "user-email";
+    public static final String CARD_ID = "card-id";
+
+    private static final String KEY_PREFIX = "NOT_FOUND::";
+    private static final String MARKER = "1";
+    private static final String METRIC_NAME = "cache.negative.lookups";
+
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration timeToLive;
+
+    public NegativeLookupCache(StringRedisTemplate redisTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.cache.negative.time-to-live:5}") long timeToLive) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.timeToLive = Duration.ofSeconds(timeToLive);
+    }
+
+    public boolean isMissing(String namespace, Object key) {
+        boolean missing;
+        try {
+            missing = Boolean.TRUE.equals(redisTemplate.hasKey(toRedisKey(namespace, key)));
+        } catch (RuntimeException e) {
+            log.warn("Failed to read negative lookup cache: {}", e.getMessage());
+            counter(namespace, "error").increment();
+            return false;
+        }
+        counter(namespace, missing ? "hit" : "miss").increment();
+        return missing;
+    }
+
+    public void markMissing(String namespace, Object key) {
+        try {
+            redisTemplate.opsForValue().set(toRedisKey(namespace, key), MARKER, timeToLive);
+        } catch (RuntimeException e) {
+            log.warn("Failed to write negative lookup cache: {}", e.getMessage());
+            counter(namespace, "error").increment();
+        }
+    }
+
+    // called after the row is saved, so a Redis failure must not fail the write; the marker expires on its own
+    public void invalidate(String namespace, Object key) {
+        try {
+            redisTemplate.delete(toRedisKey(namespace, key));
+        } catch (RuntimeException e) {
+            log.warn("Failed to invalidate negative lookup cache: {}", e.getMessage());
+            counter(namespace, "error").increment();
+        }
+    }
+
+    private Counter counter(String namespace, String result) {
+        return meterRegistry.counter(METRIC_NAME, "namespace", namespace, "result", result);
+    }
+
+    private String toRedisKey(String namespace, Object key) {
+        return KEY_PREFIX + namespace + "::" + key;
+    }
+}
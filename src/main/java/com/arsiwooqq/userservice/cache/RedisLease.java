@@ -0,0 +1,35 @@
+package com.arsiwooqq.userservice.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class RedisLease {
+    private static final String KEY_PREFIX = "LEASE::";
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of("""
+            if redis.call('get', KEYS[1]) == ARGV[1] then
+                return redis.call('del', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    // Returns the lease token, or null when somebody else holds the lease
+    public String tryAcquire(String name, Duration timeToLive) {
+        var token = UUID.randomUUID().toString();
+        var acquired = redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + name, token, timeToLive);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    public void release(String name, String token) {
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(KEY_PREFIX + name), token);
+    }
+}
@@ -0,0 +1,117 @@
+package com.arsiwooqq.userservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Reloads hot entries in the background shortly before they expire in Redis,
+    while readers keep getting the current value.
+    Within the refresh window the chance to refresh on a hit grows linearly towards expiry,
+    so instances do not all reload the same entry at the same moment.
+ */
+@Component
+@Slf4j
+public class RefreshAhead {
+    private final CacheManager cacheManager;
+    private final ExecutorService executor;
+    private final Counter refreshes;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public RefreshAhead(CacheManager cacheManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.cache.refresh-ahead.enabled:true}") boolean enabled,
+                        @Value("${app.cache.refresh-ahead.window:60}") long window,
+                        @Value("${app.cache.refresh-ahead.threads:2}") int threads) {
+        this(cacheManager, meterRegistry, enabled, window, new ThreadPoolExecutor(threads, threads,
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1000),
+                new CustomizableThreadFactory("cache-refresh-")));
+    }
+
+    RefreshAhead(CacheManager cacheManager,
+                 MeterRegistry meterRegistry,
+                 boolean enabled,
+                 long window,
+                 ExecutorService executor) {
+        this.cacheManager = cacheManager;
+        this.executor = executor;
+        this.refreshes = meterRegistry.counter("cache.refresh-ahead.reloads");
+        this.enabled = enabled;
+        this.windowMillis = TimeUnit.SECONDS.toMillis(window);
+    }
+
+    public void onHit(String cacheName, Object key, Runnable reload) {
+        if (!enabled || !(cacheManager.getCache(cacheName) instanceof TwoLevelCache cache)) {
+            return;
+        }
+
+        var expiresAt = cache.getRemoteExpiresAt(key);
+        if (expiresAt == TwoLevelCache.UNKNOWN_EXPIRY) {
+            submit(cacheName, key, () -> cache.resolveRemoteExpiresAt(key));
+        } else if (shouldRefresh(expiresAt)) {
+            submit(cacheName, key, () -> {
+                // another instance may have reloaded the entry already
+                if (isInWindow(cache.resolveRemoteExpiresAt(key))) {
+                    reload.run();
+                    refreshes.increment();
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void submit(String cacheName, Object key, Runnable task) {
+        var name = cacheName + CacheInvalidationPublisher.SEPARATOR + key;
+        if (!pending.add(name)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to refresh cache entry {}: {}", name, e.getMessage());
+                } finally {
+                    pending.remove(name);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(name);
+        }
+    }
+
+    private boolean shouldRefresh(long expiresAt) {
+        if (!isInWindow(expiresAt)) {
+            return false;
+        }
+        var remaining = expiresAt - System.currentTimeMillis();
+        return remaining <= 0 || ThreadLocalRandom.current().nextLong(windowMillis) >= remaining;
+    }
+
+    private boolean isInWindow(long expiresAt) {
+        return expiresAt > 0 && expiresAt - System.currentTimeMillis() <= windowMillis;
+    }
+}
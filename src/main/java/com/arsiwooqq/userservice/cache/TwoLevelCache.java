@@ -0,0 +1,172 @@
+package com.arsiwooqq.userservice.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.Callable;
+import java.util.function.ToLongFunction;
+
+/*
+    Local (in-JVM) cache in front of the shared Redis cache.
+    Local entries are keyed by the string form of the key, so they can be evicted
+    by invalidation messages received from other instances.
+    Local entries also remember when the remote entry expires; it is looked up lazily
+    (remote time-to-live in milliseconds, negative when unknown) and used for refresh-ahead.
+ */
+public class TwoLevelCache implements Cache {
+    public static final long UNKNOWN_EXPIRY = -1;
+    public static final long NO_EXPIRY = 0;
+
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<String, LocalEntry> local;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final ToLongFunction<String> remoteTimeToLive;
+
+    public TwoLevelCache(Cache remote,
+                         com.github.benmanes.caffeine.cache.Cache<String, LocalEntry> local,
+                         CacheInvalidationPublisher invalidationPublisher,
+                         ToLongFunction<String> remoteTimeToLive) {
+        this.remote = remote;
+        this.local = local;
+        this.invalidationPublisher = invalidationPublisher;
+        this.remoteTimeToLive = remoteTimeToLive;
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    @NonNull
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper get(@NonNull Object key) {
+        var localKey = toLocalKey(key);
+        var entry = local.getIfPresent(localKey);
+        if (entry != null) {
+            return new SimpleValueWrapper(entry.value);
+        }
+
+        var wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            local.put(localKey, new LocalEntry(wrapper.get()));
+        }
+        return wrapper;
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, @Nullable Class<T> type) {
+        var wrapper = get(key);
+        var value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        var wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+
+        var value = remote.get(key, valueLoader);
+        if (value != null) {
+            local.put(toLocalKey(key), new LocalEntry(value));
+        }
+        return value;
+    }
+
+    @Override
+    public void put(@NonNull Object key, @Nullable Object value) {
+        remote.put(key, value);
+        if (value != null) {
+            local.put(toLocalKey(key), new LocalEntry(value));
+        } else {
+            local.invalidate(toLocalKey(key));
+        }
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        remote.evict(key);
+        local.invalidate(toLocalKey(key));
+        invalidationPublisher.publishEvict(getName(), toLocalKey(key));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationPublisher.publishClear(getName());
+    }
+
+    public void putLocal(Object key, Object value) {
+        local.put(toLocalKey(key), new LocalEntry(value));
+    }
+
+    public void evictLocal(String key) {
+        local.invalidate(key);
+    }
+
+    public void clearLocal() {
+        local.invalidateAll();
+    }
+
+    // Remote expiry (epoch millis) as last seen by this instance, without asking Redis
+    public long getRemoteExpiresAt(Object key) {
+        var entry = local.getIfPresent(toLocalKey(key));
+        return entry != null ? entry.remoteExpiresAt : NO_EXPIRY;
+    }
+
+    public long resolveRemoteExpiresAt(Object key) {
+        var entry = local.getIfPresent(toLocalKey(key));
+        if (entry == null) {
+            return NO_EXPIRY;
+        }
+
+        var timeToLive = remoteTimeToLive.applyAsLong(getRemoteKey(key));
+        entry.remoteExpiresAt = timeToLive > 0 ? System.currentTimeMillis() + timeToLive : NO_EXPIRY;
+        return entry.remoteExpiresAt;
+    }
+
+    @Nullable
+    public RedisCacheConfiguration getRemoteConfiguration() {
+        return remote instanceof RedisCache redisCache ? redisCache.getCacheConfiguration() : null;
+    }
+
+    public String getRemoteKey(Object key) {
+        if (remote instanceof RedisCache redisCache) {
+            return redisCache.getCacheConfiguration().getKeyPrefixFor(getName()) + key;
+        }
+        return getName() + CacheInvalidationPublisher.SEPARATOR + key;
+    }
+
+    private String toLocalKey(Object key) {
+        return key.toString();
+    }
+
+    public static final class LocalEntry {
+        private final Object value;
+        private volatile long remoteExpiresAt = UNKNOWN_EXPIRY;
+
+        LocalEntry(Object value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.arsiwooqq.userservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToLongFunction;
+
+public class TwoLevelCacheManager implements CacheManager {
+    private final CacheManager remoteCacheManager;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final long localMaximumSize;
+    private final Duration localTimeToLive;
+    private final ToLongFunction<String> remoteTimeToLive;
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+                                CacheInvalidationPublisher invalidationPublisher,
+                                long localMaximumSize,
+                                Duration localTimeToLive,
+                                ToLongFunction<String> remoteTimeToLive) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.invalidationPublisher = invalidationPublisher;
+        this.localMaximumSize = localMaximumSize;
+        this.localTimeToLive = localTimeToLive;
+        this.remoteTimeToLive = remoteTimeToLive;
+    }
+
+    @Override
+    @Nullable
+    public Cache getCache(@NonNull String name) {
+        var cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+
+        var remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name,
+                n -> new TwoLevelCache(remote, createLocalCache(), invalidationPublisher, remoteTimeToLive));
+    }
+
+    @Override
+    @NonNull
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<String, TwoLevelCache.LocalEntry> createLocalCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTimeToLive)
+                .build();
+    }
+}
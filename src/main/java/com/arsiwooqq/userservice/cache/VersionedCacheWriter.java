@@ -0,0 +1,113 @@
+package com.arsiwooqq.userservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.util.ByteUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/*
+    Writes cache entries only if they are not older than what is already cached.
+    The version of an entry is kept next to it under "<key>::version", a slow reader
+    that loaded an old row therefore cannot overwrite a value written by a later update.
+    Deleted entries leave a tombstone version that rejects every write for a while.
+    Entries evicted after a change raise their version instead, which rejects writes of older versions.
+ */
+@Component
+@Slf4j
+public class VersionedCacheWriter {
+    public static final long TOMBSTONE = Long.MAX_VALUE;
+
+    private static final String VERSION_SUFFIX = "::version";
+    private static final RedisScript<Long> PUT_SCRIPT = RedisScript.of("""
+            local current = redis.call('get', KEYS[2])
+            if current and tonumber(current) > tonumber(ARGV[2]) then
+                return 0
+            end
+            redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[3])
+            redis.call('set', KEYS[2], ARGV[2], 'PX', ARGV[3])
+            return 1
+            """, Long.class);
+    private static final byte[] RAISE_VERSION_SCRIPT = """
+            local current = redis.call('get', KEYS[1])
+            if not current or tonumber(current) < tonumber(ARGV[1]) then
+                redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            end
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+    private static final RedisSerializer<Long> RESULT_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    private final CacheManager cacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final Duration tombstoneTimeToLive;
+
+    public VersionedCacheWriter(CacheManager cacheManager,
+                                StringRedisTemplate redisTemplate,
+                                @Value("${app.cache.tombstone.time-to-live:60}") long tombstoneTimeToLive) {
+        this.cacheManager = cacheManager;
+        this.redisTemplate = redisTemplate;
+        this.tombstoneTimeToLive = Duration.ofSeconds(tombstoneTimeToLive);
+    }
+
+    public boolean put(String cacheName, String key, Object value, long version) {
+        var cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return false;
+        }
+
+        var configuration = cache instanceof TwoLevelCache twoLevelCache ? twoLevelCache.getRemoteConfiguration() : null;
+        var timeToLive = configuration != null ? configuration.getTtlFunction().getTimeToLive(key, value) : null;
+        if (timeToLive == null || timeToLive.isZero() || timeToLive.isNegative()) {
+            cache.put(key, value);
+            return true;
+        }
+
+        var twoLevelCache = (TwoLevelCache) cache;
+        var remoteKey = twoLevelCache.getRemoteKey(key);
+        var written = redisTemplate.execute(PUT_SCRIPT, RedisSerializer.byteArray(), RESULT_SERIALIZER,
+                List.of(remoteKey, remoteKey + VERSION_SUFFIX),
+                ByteUtils.getBytes(configuration.getValueSerializationPair().write(value)),
+                toBytes(version),
+                toBytes(timeToLive.toMillis()));
+
+        if (Long.valueOf(1).equals(written)) {
+            twoLevelCache.putLocal(key, value);
+            return true;
+        }
+        return false;
+    }
+
+    // runs after the delete has committed, so a Redis failure must not fail it; the entry itself is still evicted
+    public void tombstone(String cacheName, String key) {
+        if (cacheManager.getCache(cacheName) instanceof TwoLevelCache twoLevelCache) {
+            try {
+                redisTemplate.opsForValue().set(twoLevelCache.getRemoteKey(key) + VERSION_SUFFIX,
+                        Long.toString(TOMBSTONE), tombstoneTimeToLive);
+            } catch (RuntimeException e) {
+                log.warn("Failed to leave tombstone for cache key {}::{}: {}", cacheName, key, e.getMessage());
+            }
+        }
+    }
+
+    // Queued on the given connection, so it can join a pipeline; the marker lives as long as a tombstone
+    void raiseVersion(RedisConnection connection, String remoteKey, long version) {
+        connection.scriptingCommands().eval(RAISE_VERSION_SCRIPT, ReturnType.INTEGER, 1,
+                (remoteKey + VERSION_SUFFIX).getBytes(StandardCharsets.UTF_8),
+                toBytes(version),
+                toBytes(tombstoneTimeToLive.toMillis()));
+    }
+
+    private byte[] toBytes(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -5,7 +5,7 @@ import com.arsiwooqq.userservice.dto.ValidateTokenRequest;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 
-@FeignClient(name = "auth-service", url = "${AUTH_SERVICE_URL:}")
+@FeignClient(name = "auth-service", url = "${AUTH_SERVICE_URL:}", configuration = AuthServiceFeignConfig.class)
 public interface AuthServiceClient {
 
     @PostMapping("/api/v1/auth/validate")
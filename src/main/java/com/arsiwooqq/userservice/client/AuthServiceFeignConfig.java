@@ -0,0 +1,135 @@
+package com.arsiwooqq.userservice.client;
+
+import feign.Client;
+import feign.hc5.ApacheHttp5Client;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.http.HeaderElements;
+import org.apache.hc.core5.http.message.MessageSupport;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/*
+    Feign configuration of AuthServiceClient only (deliberately not a @Configuration,
+    so it is not picked up by component scanning and applied to other clients).
+    Replaces Feign's HttpURLConnection client with a pooled Apache HttpClient 5,
+    app.auth-service.pool.enabled=false goes back to Feign's default client.
+ */
+@ConditionalOnProperty(name = "app.auth-service.pool.enabled", havingValue = "true", matchIfMissing = true)
+public class AuthServiceFeignConfig {
+    public static final String POOL_NAME = "auth-service";
+
+    @Bean
+    public PoolingHttpClientConnectionManager authServiceConnectionManager(
+            MeterRegistry meterRegistry,
+            @Value("${app.auth-service.pool.max-connections:50}") int maxConnections,
+            @Value("${app.auth-service.pool.time-to-live:5m}") Duration timeToLive,
+            @Value("${app.auth-service.pool.validate-after-inactivity:2s}") Duration validateAfterInactivity,
+            @Value("${spring.cloud.openfeign.client.config.auth-service.connect-timeout:250}") long connectTimeout) {
+        var connectionManager = new MeteredConnectionManager(meterRegistry);
+        // All calls go to a single route, so the route may use the whole pool
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                .setTimeToLive(TimeValue.of(timeToLive))
+                .setValidateAfterInactivity(TimeValue.of(validateAfterInactivity))
+                .build());
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME).bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean
+    public CloseableHttpClient authServiceHttpClient(
+            PoolingHttpClientConnectionManager authServiceConnectionManager,
+            @Value("${app.auth-service.pool.keep-alive:30s}") Duration keepAlive,
+            @Value("${app.auth-service.pool.idle-eviction:30s}") Duration idleEviction) {
+        return HttpClients.custom()
+                .setConnectionManager(authServiceConnectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy(keepAlive))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleEviction))
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    @Bean
+    public Client feignClient(CloseableHttpClient authServiceHttpClient) {
+        return new ApacheHttp5Client(authServiceHttpClient);
+    }
+
+    /*
+        Keeps a connection no longer than the auth service does (Keep-Alive: timeout=<seconds>),
+        otherwise the pool may lease a connection the server has already closed.
+        The configured duration is the upper bound and applies when the server sends no timeout.
+     */
+    static ConnectionKeepAliveStrategy keepAliveStrategy(Duration keepAlive) {
+        var configured = keepAlive.toMillis();
+        return (response, context) -> {
+            var elements = MessageSupport.iterate(response, HeaderElements.KEEP_ALIVE);
+            while (elements.hasNext()) {
+                var element = elements.next();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        var serverTimeout = Long.parseLong(element.getValue().trim()) * 1000;
+                        return TimeValue.ofMilliseconds(Math.min(serverTimeout, configured));
+                    } catch (NumberFormatException e) {
+                        // malformed header, fall back to the configured duration
+                    }
+                }
+            }
+            return TimeValue.ofMilliseconds(configured);
+        };
+    }
+
+    /*
+        Counts leases and times new connections, so connection reuse is visible:
+        every lease that does not need a connect reuses a pooled connection
+     */
+    static class MeteredConnectionManager extends PoolingHttpClientConnectionManager {
+        private final Counter leases;
+        private final Timer connects;
+
+        MeteredConnectionManager(MeterRegistry meterRegistry) {
+            this.leases = Counter.builder("httpcomponents.httpclient.pool.leases")
+                    .tag("httpclient", POOL_NAME)
+                    .register(meterRegistry);
+            this.connects = Timer.builder("httpcomponents.httpclient.connect")
+                    .tag("httpclient", POOL_NAME)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            leases.increment();
+            return super.lease(id, route, requestTimeout, state);
+        }
+
+        @Override
+        public void connect(ConnectionEndpoint endpoint, TimeValue timeout, HttpContext context) throws IOException {
+            var sample = Timer.start();
+            try {
+                super.connect(endpoint, timeout, context);
+            } finally {
+                sample.stop(connects);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.arsiwooqq.userservice.config;
+
+import com.arsiwooqq.userservice.cache.SingleFlight;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class AuthServiceClientConfig {
+    public static final String AUTH_SERVICE = "auth-service";
+
+    /*
+        Opens when the auth service is failing or slow, so requests fail fast
+        instead of holding a worker thread until the timeouts fire
+     */
+    @Bean
+    public CircuitBreaker authServiceCircuitBreaker(CircuitBreakerRegistry circuitBreakerRegistry) {
+        return circuitBreakerRegistry.circuitBreaker(AUTH_SERVICE);
+    }
+
+    /*
+        Limits the number of worker threads that can wait for the auth service at the same time.
+        Rejected calls are counted here, state and permitted calls are exported by Resilience4j
+     */
+    @Bean
+    public Bulkhead authServiceBulkhead(BulkheadRegistry bulkheadRegistry, MeterRegistry meterRegistry) {
+        var bulkhead = bulkheadRegistry.bulkhead(AUTH_SERVICE);
+        var rejected = meterRegistry.counter("resilience4j.bulkhead.rejected.calls", "name", AUTH_SERVICE);
+        bulkhead.getEventPublisher().onCallRejected(event -> rejected.increment());
+        return bulkhead;
+    }
+
+    /*
+        Concurrent requests with the same token share one outstanding validation call
+     */
+    @Bean
+    public SingleFlight<String, Boolean> tokenValidations(MeterRegistry meterRegistry) {
+        return new SingleFlight<>(meterRegistry.counter("security.token.validation.coalesced"));
+    }
+}
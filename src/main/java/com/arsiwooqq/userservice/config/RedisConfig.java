@@ -6,18 +6,33 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.arsiwooqq.userservice.cache.CacheInvalidationListener;
+import com.arsiwooqq.userservice.cache.CacheInvalidationPublisher;
+import com.arsiwooqq.userservice.cache.CompactCacheSerializer;
+import com.arsiwooqq.userservice.cache.TwoLevelCache;
+import com.arsiwooqq.userservice.cache.TwoLevelCacheManager;
+import com.arsiwooqq.userservice.dto.CardResponse;
 import com.arsiwooqq.userservice.dto.UserResponse;
+import com.arsiwooqq.userservice.service.impl.CardServiceImpl;
+import com.arsiwooqq.userservice.service.impl.UserServiceImpl;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class RedisConfig {
@@ -25,7 +40,19 @@ public class RedisConfig {
     @Value("${spring.cache.redis.time-to-live:600}")
     private long timeToLive;
 
-    private ObjectMapper redisObjectMapper() {
+    @Value("${app.cache.time-to-live-jitter:60}")
+    private long timeToLiveJitter;
+
+    @Value("${app.cache.serializer:compact}")
+    private String serializer;
+
+    @Value("${app.cache.local.maximum-size:10000}")
+    private long localMaximumSize;
+
+    @Value("${app.cache.local.time-to-live:30}")
+    private long localTimeToLive;
+
+    public static ObjectMapper redisObjectMapper() {
         ObjectMapper om = new ObjectMapper();
         om.registerModule(new JavaTimeModule());
         om.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
@@ -41,18 +68,69 @@ public class RedisConfig {
         return om;
     }
 
+    /*
+        "compact" - versioned binary format, "json" - Jackson with type information
+     */
+    private RedisSerializer<?> valueSerializer(Class<?> type) {
+        if ("json".equalsIgnoreCase(serializer)) {
+            return new Jackson2JsonRedisSerializer<>(redisObjectMapper(), type);
+        }
+        return new CompactCacheSerializer();
+    }
+
+    /*
+        Spreads expiry of entries written at the same time (e.g. after a restart or a bulk load)
+     */
+    private RedisCacheWriter.TtlFunction jitteredTimeToLive() {
+        var base = Duration.ofSeconds(timeToLive);
+        if (timeToLiveJitter <= 0) {
+            return RedisCacheWriter.TtlFunction.just(base);
+        }
+        return (key, value) -> base.plusMillis(ThreadLocalRandom.current().nextLong(timeToLiveJitter * 1000));
+    }
+
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     StringRedisTemplate redisTemplate,
+                                     CacheInvalidationPublisher invalidationPublisher) {
         RedisCacheConfiguration cacheConfiguration = RedisCacheConfiguration
                 .defaultCacheConfig()
                 .disableCachingNullValues()
-                .entryTtl(Duration.ofSeconds(timeToLive))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new Jackson2JsonRedisSerializer<>(redisObjectMapper(), UserResponse.class)));
+                .entryTtl(jitteredTimeToLive())
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        valueSerializer(UserResponse.class)));
+
+        // email -> userId index, the user itself is stored only once under its userId
+        var emailIndexConfiguration = cacheConfiguration
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(RedisSerializer.string()));
 
-        return RedisCacheManager
+        var cardConfiguration = cacheConfiguration
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        valueSerializer(CardResponse.class)));
+
+        var redisCacheManager = RedisCacheManager
                 .builder(connectionFactory)
                 .cacheDefaults(cacheConfiguration)
+                .withCacheConfiguration(UserServiceImpl.USER_EMAIL_CACHE, emailIndexConfiguration)
+                .withCacheConfiguration(CardServiceImpl.CARD_CACHE, cardConfiguration)
                 .build();
+        redisCacheManager.initializeCaches();
+
+        return new TwoLevelCacheManager(redisCacheManager, invalidationPublisher,
+                localMaximumSize, Duration.ofSeconds(localTimeToLive),
+                key -> {
+                    var expire = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+                    return expire != null ? expire : TwoLevelCache.UNKNOWN_EXPIRY;
+                });
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            CacheInvalidationListener listener) {
+        var container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(listener, new ChannelTopic(CacheInvalidationPublisher.TOPIC));
+        return container;
     }
 
 }
@@ -3,14 +3,19 @@ package com.arsiwooqq.userservice.controller;
 import com.arsiwooqq.userservice.dto.ApiResponse;
 import com.arsiwooqq.userservice.dto.CardCreateRequest;
 import com.arsiwooqq.userservice.dto.CardResponse;
+import com.arsiwooqq.userservice.dto.CursorPage;
+import com.arsiwooqq.userservice.dto.PageCount;
+import com.arsiwooqq.userservice.security.AccessRule;
+import com.arsiwooqq.userservice.security.Authorize;
 import com.arsiwooqq.userservice.service.CardService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.UUID;
@@ -22,7 +27,7 @@ public class CardController {
     private final CardService cardService;
 
     @PostMapping
-    @PreAuthorize("hasRole('ADMIN') or @securityService.canCreateCard(authentication.principal, #request)")
+    @Authorize(AccessRule.ADMIN_OR_CARD_CREATOR)
     public ResponseEntity<ApiResponse<CardResponse>> create(@RequestBody @Valid CardCreateRequest request) {
         return ResponseEntity.status(HttpStatus.CREATED).body(
                 ApiResponse.success("Card created successfully", cardService.create(request))
@@ -30,7 +35,7 @@ public class CardController {
     }
 
     @GetMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or @securityService.canAccessCard(authentication.principal, #id)")
+    @Authorize(AccessRule.ADMIN_OR_CARD_OWNER)
     public ResponseEntity<ApiResponse<CardResponse>> getById(@PathVariable("id") UUID id) {
         return ResponseEntity.ok(
                 ApiResponse.success("Card successfully found", cardService.getById(id))
@@ -38,15 +43,27 @@ public class CardController {
     }
 
     @GetMapping
-    @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<Page<CardResponse>>> getAllPaged(Pageable pageable) {
+    @Authorize(AccessRule.ADMIN)
+    public ResponseEntity<ApiResponse<Slice<CardResponse>>> getAllPaged(
+            Pageable pageable,
+            @RequestParam(value = "count", defaultValue = "EXACT") PageCount count) {
         return ResponseEntity.ok(
-                ApiResponse.success("Page of cards successfully formed", cardService.getAllPaged(pageable))
+                ApiResponse.success("Page of cards successfully formed", cardService.getAllPaged(pageable, count))
+        );
+    }
+
+    @GetMapping(params = "cursor")
+    @Authorize(AccessRule.ADMIN)
+    public ResponseEntity<ApiResponse<CursorPage<CardResponse>>> getAllByCursor(
+            @RequestParam("cursor") String cursor,
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) int size) {
+        return ResponseEntity.ok(
+                ApiResponse.success("Slice of cards successfully formed", cardService.getAllByCursor(cursor, size))
         );
     }
 
     @DeleteMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or @securityService.canAccessCard(authentication.principal, #id)")
+    @Authorize(AccessRule.ADMIN_OR_CARD_OWNER)
     public ResponseEntity<ApiResponse<Void>> delete(@PathVariable("id") UUID id) {
         cardService.delete(id);
         return ResponseEntity.ok(
@@ -1,19 +1,28 @@
 package com.arsiwooqq.userservice.controller;
 
 import com.arsiwooqq.userservice.dto.ApiResponse;
+import com.arsiwooqq.userservice.dto.CardResponse;
+import com.arsiwooqq.userservice.dto.CursorPage;
+import com.arsiwooqq.userservice.dto.PageCount;
 import com.arsiwooqq.userservice.dto.UserCreateRequest;
 import com.arsiwooqq.userservice.dto.UserResponse;
 import com.arsiwooqq.userservice.dto.UserUpdateRequest;
+import com.arsiwooqq.userservice.dto.UserView;
+import com.arsiwooqq.userservice.security.AccessRule;
+import com.arsiwooqq.userservice.security.Authorize;
+import com.arsiwooqq.userservice.service.CardService;
 import com.arsiwooqq.userservice.service.UserService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -21,9 +30,10 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
+    private final CardService cardService;
 
     @PostMapping
-    @PreAuthorize("hasRole('ADMIN') or @securityService.canCreateUser(authentication.principal, #request)")
+    @Authorize(AccessRule.ADMIN_OR_USER_CREATOR)
     public ResponseEntity<ApiResponse<UserResponse>> create(@RequestBody @Valid UserCreateRequest request) {
         return ResponseEntity.status(HttpStatus.CREATED).body((
                 ApiResponse.success("User successfully created", userService.create(request))
@@ -31,32 +41,58 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or #userId.toString().equals(authentication.principal)")
-    public ResponseEntity<ApiResponse<UserResponse>> getById(@PathVariable("id") String userId) {
-        return ResponseEntity.ok(ApiResponse.success("User successfully found", userService.getByUserId(userId)));
+    @Authorize(AccessRule.ADMIN_OR_SELF)
+    public ResponseEntity<ApiResponse<UserResponse>> getById(
+            @PathVariable("id") String userId,
+            @RequestParam(value = "view", defaultValue = "FULL") UserView view) {
+        return ResponseEntity.ok(ApiResponse.success("User successfully found",
+                userService.getByUserId(userId, view == UserView.FULL)));
+    }
+
+    @GetMapping("/{id}/cards")
+    @Authorize(AccessRule.ADMIN_OR_SELF)
+    public ResponseEntity<ApiResponse<Page<CardResponse>>> getCards(@PathVariable("id") String userId,
+                                                                    Pageable pageable) {
+        return ResponseEntity.ok(
+                ApiResponse.success("Page of cards successfully formed", cardService.getAllByUserId(userId, pageable))
+        );
     }
 
     @GetMapping
-    @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<Page<UserResponse>>> getUsers(Pageable pageable) {
+    @Authorize(AccessRule.ADMIN)
+    public ResponseEntity<ApiResponse<Slice<UserResponse>>> getUsers(
+            Pageable pageable,
+            @RequestParam(value = "count", defaultValue = "EXACT") PageCount count) {
+        return ResponseEntity.ok(
+                ApiResponse.success("Page of users successfully formed", userService.getAllPaged(pageable, count))
+        );
+    }
+
+    @GetMapping(params = "cursor")
+    @Authorize(AccessRule.ADMIN)
+    public ResponseEntity<ApiResponse<CursorPage<UserResponse>>> getUsersByCursor(
+            @RequestParam("cursor") String cursor,
+            @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) int size) {
         return ResponseEntity.ok(
-                ApiResponse.success("Page of users successfully formed", userService.getAllPaged(pageable))
+                ApiResponse.success("Slice of users successfully formed", userService.getAllByCursor(cursor, size))
         );
     }
 
     @GetMapping("/search")
-    @PreAuthorize("hasRole('ADMIN')")
+    @Authorize(AccessRule.ADMIN)
     public ResponseEntity<ApiResponse<UserResponse>> get(
             @RequestParam(value = "email")
             @NotBlank @Email(message = "Please provide correct email address")
-            String email) {
+            String email,
+            @RequestParam(value = "view", defaultValue = "FULL") UserView view) {
         return ResponseEntity.ok(
-                ApiResponse.success("User successfully found", userService.getByEmail(email))
+                ApiResponse.success("User successfully found",
+                        userService.getByEmail(email, view == UserView.FULL))
         );
     }
 
     @PatchMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or #userId.toString().equals(authentication.principal)")
+    @Authorize(AccessRule.ADMIN_OR_SELF)
     public ResponseEntity<ApiResponse<Void>> update(@PathVariable("id") String userId,
                                                     @RequestBody @Valid UserUpdateRequest request) {
         userService.update(userId, request);
@@ -66,7 +102,7 @@ public class UserController {
     }
 
     @DeleteMapping("/{id}")
-    @PreAuthorize("hasRole('ADMIN') or #userId.toString().equals(authentication.principal)")
+    @Authorize(AccessRule.ADMIN_OR_SELF)
     public ResponseEntity<ApiResponse<Void>> delete(@PathVariable("id") String userId) {
         userService.delete(userId);
         return ResponseEntity.ok(
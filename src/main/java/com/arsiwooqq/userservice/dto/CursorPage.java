@@ -0,0 +1,13 @@
+package com.arsiwooqq.userservice.dto;
+
+import java.util.List;
+
+/*
+    Slice of a keyset-paginated listing.
+    nextCursor is passed back as the cursor parameter to get the following slice; null on the last one.
+ */
+public record CursorPage<T>(
+        List<T> content,
+        String nextCursor
+) {
+}
@@ -0,0 +1,12 @@
+package com.arsiwooqq.userservice.dto;
+
+/*
+    How the total of a page is computed.
+    EXACT runs a count query, NONE skips it and only tells whether there is a next page,
+    ESTIMATED takes the row count Postgres keeps for the planner, which may lag behind recent writes.
+ */
+public enum PageCount {
+    EXACT,
+    NONE,
+    ESTIMATED
+}
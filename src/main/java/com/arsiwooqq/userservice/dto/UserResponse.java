@@ -1,5 +1,7 @@
 package com.arsiwooqq.userservice.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.LocalDate;
 import java.util.List;
 
@@ -9,6 +11,8 @@ public record UserResponse(
         String surname,
         LocalDate birthDate,
         String email,
+        // null when cards were not requested
+        @JsonInclude(JsonInclude.Include.NON_NULL)
         List<CardResponse> cards
 ) {
 }
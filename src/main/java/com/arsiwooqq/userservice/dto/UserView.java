@@ -0,0 +1,10 @@
+package com.arsiwooqq.userservice.dto;
+
+/*
+    Which part of a user is returned.
+    FULL is the user with its cards, as it always was; PROFILE leaves the cards out and never reads them.
+ */
+public enum UserView {
+    FULL,
+    PROFILE
+}
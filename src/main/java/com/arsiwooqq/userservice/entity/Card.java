@@ -22,7 +22,8 @@ public class Card {
     @Column(name = "id")
     private UUID id;
 
-    @ManyToOne
+    // fetched only by queries that need the owner, see CardRepository
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -39,6 +39,10 @@ public class User {
     @OneToMany(mappedBy = "user", cascade = CascadeType.REMOVE, orphanRemoval = true)
     private List<Card> cards = new ArrayList<>();
 
+    // bumped by UserRepository.incrementVersion on every change, never written by the entity itself
+    @Column(name = "version", nullable = false, insertable = false, updatable = false)
+    private long version;
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
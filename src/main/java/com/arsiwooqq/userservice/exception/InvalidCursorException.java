@@ -0,0 +1,9 @@
+package com.arsiwooqq.userservice.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidCursorException extends ApiException {
+    public InvalidCursorException() {
+        super("Invalid cursor. Use the nextCursor value of the previous response!", HttpStatus.BAD_REQUEST);
+    }
+}
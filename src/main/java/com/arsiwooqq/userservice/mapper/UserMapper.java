@@ -10,11 +10,15 @@ import org.mapstruct.*;
 public interface UserMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "cards", ignore = true)
+    @Mapping(target = "version", ignore = true)
     User toEntity(UserCreateRequest request);
     UserResponse toResponse(User user);
+    @Mapping(target = "cards", ignore = true)
+    UserResponse toProfileResponse(User user);
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "userId", ignore = true)
     @Mapping(target = "cards", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     void update(UserUpdateRequest request, @MappingTarget User user);
 }
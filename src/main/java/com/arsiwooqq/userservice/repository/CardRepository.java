@@ -1,8 +1,11 @@
 package com.arsiwooqq.userservice.repository;
 
+import com.arsiwooqq.userservice.dto.CardResponse;
 import com.arsiwooqq.userservice.entity.Card;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -18,8 +21,14 @@ public interface CardRepository extends JpaRepository<Card, UUID> {
 
     boolean existsByNumber(String number);
 
+    boolean existsByIdAndUserUserId(UUID id, String userId);
+
+    @Query("select c.user.userId from Card c where c.id = :id")
+    Optional<String> findOwnerUserIdById(UUID id);
+
     // redundant methods only to follow the task requirements
 
+    @EntityGraph(attributePaths = {"user"})
     @Query("from Card c where c.id = :id")
     Optional<Card> findCardById(UUID id);
 
@@ -36,12 +45,50 @@ public interface CardRepository extends JpaRepository<Card, UUID> {
                 delete from Card c
                 where c.id = :id
             """)
-    void delete(UUID id);
+    int delete(UUID id);
+
+    @Query("select new com.arsiwooqq.userservice.repository.CountedId(c.id, count(*) over()) from Card c")
+    List<CountedId> findCardIds(Pageable pageable);
 
     @Query("select c.id from Card c")
-    Page<UUID> findCardIds(Pageable pageable);
+    Slice<UUID> findCardIdSlice(Pageable pageable);
+
+    // planner statistics, -1 until the table has been analyzed
+    @Query(value = "select cast(reltuples as bigint) from pg_class where oid = cast('card_info' as regclass)",
+            nativeQuery = true)
+    long estimateCount();
+
+    @Query("select c.id from Card c order by c.id")
+    List<UUID> findFirstCardIds(Limit limit);
+
+    @Query("select c.id from Card c where c.id > :after order by c.id")
+    List<UUID> findCardIdsAfter(UUID after, Limit limit);
 
     @EntityGraph(attributePaths = {"user"})
     @Query("select c from Card c where c.id in :ids")
     List<Card> findAllWithUsersByIds(@Param("ids") List<UUID> ids);
+
+    // Read paths select responses directly, nothing is loaded into the persistence context
+
+    @Query("""
+            select new com.arsiwooqq.userservice.dto.CardResponse(c.id, u.userId, c.number, c.holder, c.expirationDate)
+            from Card c join c.user u
+            where c.id = :id
+    """)
+    Optional<CardResponse> findResponseById(UUID id);
+
+    @Query("""
+            select new com.arsiwooqq.userservice.dto.CardResponse(c.id, u.userId, c.number, c.holder, c.expirationDate)
+            from Card c join c.user u
+            where c.id in :ids
+    """)
+    List<CardResponse> findResponsesByIds(@Param("ids") List<UUID> ids);
+
+    // resolves users.user_id through its unique index, then reads cards through idx_card_info_user_id
+    @Query(value = """
+            select new com.arsiwooqq.userservice.dto.CardResponse(c.id, u.userId, c.number, c.holder, c.expirationDate)
+            from Card c join c.user u
+            where u.userId = :userId
+    """, countQuery = "select count(c) from Card c join c.user u where u.userId = :userId")
+    Page<CardResponse> findResponsesByUserId(String userId, Pageable pageable);
 }
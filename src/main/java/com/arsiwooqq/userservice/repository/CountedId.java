@@ -0,0 +1,10 @@
+package com.arsiwooqq.userservice.repository;
+
+import java.util.UUID;
+
+// Row of a page of ids, carrying the total row count computed by the same query
+public record CountedId(
+        UUID id,
+        long total
+) {
+}
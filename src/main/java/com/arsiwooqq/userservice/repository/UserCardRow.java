@@ -0,0 +1,52 @@
+package com.arsiwooqq.userservice.repository;
+
+import com.arsiwooqq.userservice.dto.CardResponse;
+import com.arsiwooqq.userservice.dto.UserResponse;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+
+/*
+    Row of a users left join cards projection: one row per card,
+    a user without cards comes as a single row with null card columns
+ */
+public record UserCardRow(
+        UUID id,
+        String userId,
+        String name,
+        String surname,
+        LocalDate birthDate,
+        String email,
+        UUID cardId,
+        String cardNumber,
+        String cardHolder,
+        LocalDate cardExpirationDate
+) {
+    // Groups rows into responses in the order of ids; ids without rows are skipped
+    public static List<UserResponse> toResponses(List<UserCardRow> rows, List<UUID> ids) {
+        var users = new HashMap<UUID, UserCardRow>();
+        var cards = new HashMap<UUID, List<CardResponse>>();
+        for (var row : rows) {
+            users.putIfAbsent(row.id(), row);
+            var userCards = cards.computeIfAbsent(row.id(), id -> new ArrayList<>());
+            if (row.cardId() != null) {
+                userCards.add(new CardResponse(row.cardId(), row.userId(), row.cardNumber(), row.cardHolder(),
+                        row.cardExpirationDate()));
+            }
+        }
+
+        var responses = new LinkedHashMap<UUID, UserResponse>();
+        for (var id : ids) {
+            var user = users.get(id);
+            if (user != null) {
+                responses.put(id, new UserResponse(user.userId(), user.name(), user.surname(), user.birthDate(),
+                        user.email(), cards.get(id)));
+            }
+        }
+        return List.copyOf(responses.values());
+    }
+}
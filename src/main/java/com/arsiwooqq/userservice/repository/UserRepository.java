@@ -1,8 +1,9 @@
 package com.arsiwooqq.userservice.repository;
 
 import com.arsiwooqq.userservice.entity.User;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -23,15 +24,48 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     /*
         There's no way to use pageable with entity graph (we need to resolve n+1)
         So we get user ids firstly and then fetch users with cards
+        The ids carry the total row count (count(*) over()), so the page needs no separate count query
      */
 
+    @Query("select new com.arsiwooqq.userservice.repository.CountedId(u.id, count(*) over()) from User u")
+    List<CountedId> findUserIds(Pageable pageable);
+
     @Query("select u.id from User u")
-    Page<UUID> findUserIds(Pageable pageable);
+    Slice<UUID> findUserIdSlice(Pageable pageable);
+
+    // planner statistics, -1 until the table has been analyzed
+    @Query(value = "select cast(reltuples as bigint) from pg_class where oid = cast('users' as regclass)",
+            nativeQuery = true)
+    long estimateCount();
+
+    @Query("select u.id from User u order by u.id")
+    List<UUID> findFirstUserIds(Limit limit);
+
+    @Query("select u.id from User u where u.id > :after order by u.id")
+    List<UUID> findUserIdsAfter(UUID after, Limit limit);
 
     @EntityGraph(attributePaths = {"cards"})
     @Query("select u from User u where u.id in :ids")
     List<User> findAllWithCardsByIds(@Param("ids") List<UUID> ids);
 
+    // Same users and cards as plain rows, nothing is loaded into the persistence context
+    @Query("""
+            select new com.arsiwooqq.userservice.repository.UserCardRow(
+                u.id, u.userId, u.name, u.surname, u.birthDate, u.email,
+                c.id, c.number, c.holder, c.expirationDate)
+            from User u left join u.cards c
+            where u.id in :ids
+    """)
+    List<UserCardRow> findResponseRowsByIds(@Param("ids") List<UUID> ids);
+
+    // Read paths map cards too, so they are fetched with the user in one statement
+
+    @EntityGraph(attributePaths = {"cards"})
+    Optional<User> findWithCardsByUserId(String userId);
+
+    @EntityGraph(attributePaths = {"cards"})
+    Optional<User> findWithCardsByEmail(String email);
+
     // redundant methods only to follow the task requirements
 
     @Query("from User u where u.userId = :userId")
@@ -54,5 +88,19 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     boolean existsByUserId(String userId);
 
+    @Modifying
+    @Query("update User u set u.version = u.version + 1 where u.id = :id")
+    void incrementVersion(UUID id);
+
+    @Query("select u.version from User u where u.id = :id")
+    long findVersionById(UUID id);
+
+    @Modifying
+    @Query("update User u set u.version = u.version + 1 where u.userId = :userId")
+    void incrementVersionByUserId(String userId);
+
+    @Query("select u.version from User u where u.userId = :userId")
+    long findVersionByUserId(String userId);
+
     void deleteByUserId(String userId);
 }
@@ -0,0 +1,33 @@
+package com.arsiwooqq.userservice.security;
+
+import com.arsiwooqq.userservice.dto.CardCreateRequest;
+import com.arsiwooqq.userservice.dto.UserCreateRequest;
+
+import java.util.UUID;
+
+/*
+    Authorization rules of the controller methods, checked by AccessRuleAuthorizationManager.
+    The argument type tells which method argument the rule is applied to.
+ */
+public enum AccessRule {
+    // hasRole('ADMIN')
+    ADMIN(null),
+    // hasRole('ADMIN') or #userId.toString().equals(authentication.name)
+    ADMIN_OR_SELF(String.class),
+    // hasRole('ADMIN') or @securityService.canCreateUser(authentication.name, #request)
+    ADMIN_OR_USER_CREATOR(UserCreateRequest.class),
+    // hasRole('ADMIN') or @securityService.canCreateCard(authentication.name, #request)
+    ADMIN_OR_CARD_CREATOR(CardCreateRequest.class),
+    // hasRole('ADMIN') or @securityService.canAccessCard(authentication.name, #id)
+    ADMIN_OR_CARD_OWNER(UUID.class);
+
+    private final Class<?> argumentType;
+
+    AccessRule(Class<?> argumentType) {
+        this.argumentType = argumentType;
+    }
+
+    public Class<?> getArgumentType() {
+        return argumentType;
+    }
+}
@@ -0,0 +1,100 @@
+package com.arsiwooqq.userservice.security;
+
+import com.arsiwooqq.userservice.dto.CardCreateRequest;
+import com.arsiwooqq.userservice.dto.UserCreateRequest;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/*
+    Checks @Authorize rules. The rule and the position of its argument are resolved once per method,
+    so a call only runs the role check and, if needed, the ownership check, without expression evaluation.
+    Semantics are the ones of the @PreAuthorize expressions listed in AccessRule.
+ */
+public class AccessRuleAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+    private static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final ObjectProvider<SecurityService> securityService;
+    private final Map<Method, CompiledRule> rules = new ConcurrentHashMap<>();
+
+    public AccessRuleAuthorizationManager(ObjectProvider<SecurityService> securityService) {
+        this.securityService = securityService;
+    }
+
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        var rule = rules.computeIfAbsent(invocation.getMethod(), this::compile);
+        var currentAuthentication = authentication.get();
+        if (currentAuthentication == null) {
+            return DENIED;
+        }
+        if (isAdmin(currentAuthentication)) {
+            return GRANTED;
+        }
+        return isAllowed(rule, currentAuthentication.getName(), invocation.getArguments()) ? GRANTED : DENIED;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        return (AuthorizationDecision) authorize(authentication, invocation);
+    }
+
+    private boolean isAllowed(CompiledRule rule, String userId, Object[] arguments) {
+        var argument = rule.argumentIndex() >= 0 ? arguments[rule.argumentIndex()] : null;
+        return switch (rule.rule()) {
+            case ADMIN -> false;
+            // a token without subject has no name and owns nothing
+            case ADMIN_OR_SELF -> Objects.equals(userId, argument);
+            case ADMIN_OR_USER_CREATOR -> securityService.getObject().canCreateUser(userId, (UserCreateRequest) argument);
+            case ADMIN_OR_CARD_CREATOR -> securityService.getObject().canCreateCard(userId, (CardCreateRequest) argument);
+            case ADMIN_OR_CARD_OWNER -> securityService.getObject().canAccessCard(userId, (UUID) argument);
+        };
+    }
+
+    private boolean isAdmin(Authentication authentication) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (ADMIN_AUTHORITY.equals(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CompiledRule compile(Method method) {
+        var annotation = AnnotatedElementUtils.findMergedAnnotation(method, Authorize.class);
+        if (annotation == null) {
+            throw new IllegalStateException("Method " + method + " is not annotated with @Authorize");
+        }
+
+        var rule = annotation.value();
+        if (rule.getArgumentType() == null) {
+            return new CompiledRule(rule, -1);
+        }
+        var parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (parameterTypes[i] == rule.getArgumentType()) {
+                return new CompiledRule(rule, i);
+            }
+        }
+        throw new IllegalStateException("Method " + method + " has no " + rule.getArgumentType().getSimpleName()
+                + " argument required by rule " + rule);
+    }
+
+    private record CompiledRule(AccessRule rule, int argumentIndex) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.arsiwooqq.userservice.security;
+
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/*
+    Card owners confirmed while authorizing the current request, so the handler acting on
+    the same card does not look its owner up again. Not proxied: outside a request there is no instance
+    and callers fall back to the database.
+ */
+@Component
+@Scope(WebApplicationContext.SCOPE_REQUEST)
+public class CardOwners {
+    private final Map<UUID, String> owners = new HashMap<>(2);
+
+    public void remember(UUID cardId, String userId) {
+        owners.put(cardId, userId);
+    }
+
+    public String get(UUID cardId) {
+        return owners.get(cardId);
+    }
+}
@@ -0,0 +1,62 @@
+package com.arsiwooqq.userservice.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/*
+    Authentication set by JwtFilter. Unlike UsernamePasswordAuthenticationToken
+    it does not copy the authority list, so the shared authorities of known roles are used as is.
+ */
+public final class JwtAuthentication implements Authentication {
+    private final JwtPrincipal principal;
+    private boolean authenticated = true;
+
+    public JwtAuthentication(JwtPrincipal principal) {
+        this.principal = principal;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return principal.authorities();
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getDetails() {
+        return null;
+    }
+
+    @Override
+    public JwtPrincipal getPrincipal() {
+        return principal;
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    @Override
+    public void setAuthenticated(boolean authenticated) {
+        if (authenticated) {
+            throw new IllegalArgumentException("JWT authentication can only be created authenticated");
+        }
+        this.authenticated = false;
+    }
+
+    @Override
+    public String getName() {
+        return principal.getName();
+    }
+
+    @Override
+    public String toString() {
+        return "JwtAuthentication[principal=" + principal + "]";
+    }
+}
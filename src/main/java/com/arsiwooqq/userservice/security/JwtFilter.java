@@ -1,8 +1,15 @@
 package com.arsiwooqq.userservice.security;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.arsiwooqq.userservice.cache.SingleFlight;
 import com.arsiwooqq.userservice.client.AuthServiceClient;
 import com.arsiwooqq.userservice.dto.ValidateTokenRequest;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,20 +17,22 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class JwtFilter extends OncePerRequestFilter {
     private final AuthServiceClient authServiceClient;
+    private final TokenValidationCache tokenValidationCache;
+    private final LocalTokenVerifier localTokenVerifier;
+    private final CircuitBreaker authServiceCircuitBreaker;
+    private final Bulkhead authServiceBulkhead;
+    private final SingleFlight<String, Boolean> tokenValidations;
 
     @Override
     public void doFilterInternal(@NonNull HttpServletRequest request,
@@ -33,9 +42,10 @@ public class JwtFilter extends OncePerRequestFilter {
         String token = getTokenFromRequest(request);
         log.debug("Token fetched from request");
         if (token != null) {
-            if (validateToken(token)) {
+            var jwt = decode(token);
+            if (jwt != null && validateToken(jwt)) {
                 log.debug("Token is valid. Setting authentication");
-                setAuthentication(token);
+                setAuthentication(JwtPrincipal.from(jwt));
             }
         }
         filterChain.doFilter(request, response);
@@ -49,36 +59,51 @@ public class JwtFilter extends OncePerRequestFilter {
         return null;
     }
 
-    private boolean validateToken(String token) {
+    private DecodedJWT decode(String token) {
         try {
-            var response = authServiceClient.validate(new ValidateTokenRequest(token));
-            log.debug("Received response from Auth Service: {}", response);
-            return response != null && response.getData() != null && response.getData().equals(true);
-        } catch (Exception e) {
-            log.error("Error while validating token", e);
+            return JWT.decode(token);
+        } catch (JWTDecodeException e) {
+            log.debug("Token is not a valid JWT: {}", e.getMessage());
+            return null;
         }
-        return false;
     }
 
-    private String getRole(String token) {
-        return JWT.decode(token).getClaim("role").asString();
+    private boolean validateToken(DecodedJWT jwt) {
+        if (localTokenVerifier.getMode() == LocalTokenVerifier.Mode.REMOTE) {
+            return Boolean.TRUE.equals(validateWithAuthService(jwt));
+        }
+        if (!localTokenVerifier.verify(jwt)) {
+            return false;
+        }
+        if (localTokenVerifier.shouldConfirmRemotely()) {
+            return localTokenVerifier.confirmedRemotely(validateWithAuthService(jwt));
+        }
+        return true;
     }
 
-    private String getId(String token) {
-        return JWT.decode(token).getSubject();
+    // null when the auth service could not be asked
+    private Boolean validateWithAuthService(DecodedJWT jwt) {
+        var token = jwt.getToken();
+        return tokenValidationCache.validate(jwt,
+                () -> tokenValidations.execute(token, () -> validateRemotely(token)));
     }
 
-    private void setAuthentication(String token) {
-        var id = getId(token);
-        var role = getRole(token);
+    private Boolean validateRemotely(String token) {
+        try {
+            var response = authServiceCircuitBreaker.executeSupplier(() -> authServiceBulkhead.executeSupplier(
+                    () -> authServiceClient.validate(new ValidateTokenRequest(token))));
+            log.debug("Received response from Auth Service: {}", response);
+            return response != null && response.getData() != null && response.getData().equals(true);
+        } catch (CallNotPermittedException | BulkheadFullException e) {
+            log.debug("Auth Service call rejected: {}", e.getMessage());
+        } catch (Exception e) {
+            log.warn("Error while validating token: {}", e.getMessage());
+        }
+        return null;
+    }
 
-        SecurityContextHolder.getContext().setAuthentication(
-                new UsernamePasswordAuthenticationToken(
-                        id,
-                        null,
-                        List.of(new SimpleGrantedAuthority(role))
-                )
-        );
-        log.debug("Authenticated user with id {}. Role: {}", id, role);
+    private void setAuthentication(JwtPrincipal principal) {
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthentication(principal));
+        log.debug("Authenticated user with id {}. Role: {}", principal.subject(), principal.role());
     }
 }
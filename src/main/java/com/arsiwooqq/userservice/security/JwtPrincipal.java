@@ -0,0 +1,38 @@
+package com.arsiwooqq.userservice.security;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Authenticated user as read from the access token, decoded once per request.
+    Authorities of the known roles are shared instead of being created per request.
+ */
+public record JwtPrincipal(String subject, String role, Instant expiresAt) implements Principal {
+    private static final Map<String, List<GrantedAuthority>> KNOWN_AUTHORITIES = Map.of(
+            "ROLE_USER", List.of(new SimpleGrantedAuthority("ROLE_USER")),
+            "ROLE_ADMIN", List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))
+    );
+
+    public static JwtPrincipal from(DecodedJWT jwt) {
+        return new JwtPrincipal(jwt.getSubject(), jwt.getClaim("role").asString(), jwt.getExpiresAtAsInstant());
+    }
+
+    public List<GrantedAuthority> authorities() {
+        if (role == null) {
+            return List.of();
+        }
+        var authorities = KNOWN_AUTHORITIES.get(role);
+        return authorities != null ? authorities : List.of(new SimpleGrantedAuthority(role));
+    }
+
+    @Override
+    public String getName() {
+        return subject;
+    }
+}
@@ -0,0 +1,209 @@
+package com.arsiwooqq.userservice.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.interfaces.RSAKeyProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Verifies RS256 signature and expiry of access tokens without calling the auth service.
+    The public key is either configured directly (PEM) or taken from the auth service JWKS,
+    which is refreshed periodically and on an unknown key id.
+    Modes: REMOTE - auth service only (default), LOCAL - local verification only,
+    SAMPLED - local verification, plus a share of requests confirmed by the auth service
+    (the local result stands when the auth service cannot answer).
+ */
+@Component
+@Slf4j
+public class LocalTokenVerifier {
+    private static final long MIN_JWKS_REFRESH_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+    private final Mode mode;
+    private final String jwksUri;
+    private final double sampleRate;
+    private final RestClient restClient = RestClient.create();
+    private final JWTVerifier verifier;
+    private final Counter verified;
+    private final Counter rejected;
+    private final Counter remoteMismatches;
+    private final Counter remoteUnavailable;
+    private volatile Map<String, RSAPublicKey> jwks = Map.of();
+    private volatile long jwksLoadedAt;
+
+    public LocalTokenVerifier(MeterRegistry meterRegistry,
+                              @Value("${app.security.jwt.verification:REMOTE}") Mode mode,
+                              @Value("${app.security.jwt.public-key:}") String publicKey,
+                              @Value("${app.security.jwt.jwks-uri:}") String jwksUri,
+                              @Value("${app.security.jwt.issuer:}") String issuer,
+                              @Value("${app.security.jwt.leeway:5}") long leeway,
+                              @Value("${app.security.jwt.sample-rate:0.01}") double sampleRate) {
+        this.mode = mode;
+        this.jwksUri = jwksUri;
+        this.sampleRate = sampleRate;
+        this.verified = meterRegistry.counter("security.token.verification.local", "result", "valid");
+        this.rejected = meterRegistry.counter("security.token.verification.local", "result", "invalid");
+        this.remoteMismatches = meterRegistry.counter("security.token.verification.remote.mismatch");
+        this.remoteUnavailable = meterRegistry.counter("security.token.verification.remote.unavailable");
+
+        if (mode == Mode.REMOTE) {
+            this.verifier = null;
+            return;
+        }
+        if (publicKey.isBlank() && jwksUri.isBlank()) {
+            throw new IllegalStateException("Local token verification requires app.security.jwt.public-key or app.security.jwt.jwks-uri");
+        }
+
+        var staticKey = publicKey.isBlank() ? null : parsePublicKey(publicKey);
+        var verification = JWT.require(Algorithm.RSA256(new KeyProvider(staticKey)))
+                .acceptLeeway(leeway);
+        if (!issuer.isBlank()) {
+            verification.withIssuer(issuer);
+        }
+        this.verifier = verification.build();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public boolean verify(DecodedJWT jwt) {
+        try {
+            verifier.verify(jwt);
+            verified.increment();
+            return true;
+        } catch (JWTVerificationException e) {
+            log.debug("Token rejected by local verification: {}", e.getMessage());
+            rejected.increment();
+            return false;
+        }
+    }
+
+    public boolean shouldConfirmRemotely() {
+        return mode == Mode.SAMPLED && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    // valid is null when the auth service could not be asked, the local result then stands
+    public boolean confirmedRemotely(Boolean valid) {
+        if (valid == null) {
+            log.debug("Auth Service unavailable, keeping local verification result");
+            remoteUnavailable.increment();
+            return true;
+        }
+        if (!valid) {
+            // e.g. revoked token, or auth service keys rotated
+            log.warn("Token passed local verification but was rejected by Auth Service");
+            remoteMismatches.increment();
+        }
+        return valid;
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.jwt.jwks-refresh-interval:300000}")
+    public void refreshKeys() {
+        if (mode == Mode.REMOTE || jwksUri.isBlank()) {
+            return;
+        }
+
+        try {
+            var body = restClient.get().uri(jwksUri).retrieve().body(JsonNode.class);
+            var keys = new HashMap<String, RSAPublicKey>();
+            if (body != null) {
+                for (var key : body.path("keys")) {
+                    if ("RSA".equals(key.path("kty").asText())) {
+                        keys.put(key.path("kid").asText(), toPublicKey(key));
+                    }
+                }
+            }
+            jwks = Map.copyOf(keys);
+            log.debug("Loaded {} token verification keys", keys.size());
+        } catch (RuntimeException | GeneralSecurityException e) {
+            log.warn("Failed to load token verification keys from {}: {}", jwksUri, e.getMessage());
+        } finally {
+            jwksLoadedAt = System.currentTimeMillis();
+        }
+    }
+
+    private RSAPublicKey findKey(String keyId) {
+        var key = lookUpKey(keyId);
+        if (key == null && System.currentTimeMillis() - jwksLoadedAt > MIN_JWKS_REFRESH_INTERVAL) {
+            refreshKeys();
+            key = lookUpKey(keyId);
+        }
+        return key;
+    }
+
+    // the key map does not accept null lookups; a token without key id is only matched when the JWKS has one key
+    private RSAPublicKey lookUpKey(String keyId) {
+        var keys = jwks;
+        if (keyId == null) {
+            return keys.size() == 1 ? keys.values().iterator().next() : null;
+        }
+        return keys.get(keyId);
+    }
+
+    private static RSAPublicKey toPublicKey(JsonNode key) throws GeneralSecurityException {
+        var decoder = Base64.getUrlDecoder();
+        var modulus = new BigInteger(1, decoder.decode(key.path("n").asText()));
+        var exponent = new BigInteger(1, decoder.decode(key.path("e").asText()));
+        return (RSAPublicKey) KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulus, exponent));
+    }
+
+    private static RSAPublicKey parsePublicKey(String pem) {
+        var encoded = pem.replaceAll("-----(BEGIN|END) PUBLIC KEY-----", "").replaceAll("\\s", "");
+        try {
+            return (RSAPublicKey) KeyFactory.getInstance("RSA")
+                    .generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(encoded)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid app.security.jwt.public-key", e);
+        }
+    }
+
+    public enum Mode {
+        REMOTE, LOCAL, SAMPLED
+    }
+
+    private class KeyProvider implements RSAKeyProvider {
+        private final RSAPublicKey staticKey;
+
+        KeyProvider(RSAPublicKey staticKey) {
+            this.staticKey = staticKey;
+        }
+
+        @Override
+        public RSAPublicKey getPublicKeyById(String keyId) {
+            return staticKey != null ? staticKey : findKey(keyId);
+        }
+
+        @Override
+        public RSAPrivateKey getPrivateKey() {
+            return null;
+        }
+
+        @Override
+        public String getPrivateKeyId() {
+            return null;
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package com.arsiwooqq.userservice.security;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
 import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.method.AuthorizationInterceptorsOrder;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -30,7 +37,7 @@ public class SecurityConfig {
         http
                 .securityMatcher(EndpointRequest.toAnyEndpoint())
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers(EndpointRequest.to("health")).permitAll()
+                        .requestMatchers(EndpointRequest.to("health", "metrics")).permitAll()
                         .anyRequest().denyAll()
                 )
                 .csrf(AbstractHttpConfigurer::disable);
@@ -56,6 +63,21 @@ public class SecurityConfig {
                 .build();
     }
 
+    /*
+        Static and lazy on SecurityService, so the advisor does not initialize the services
+        before the other post-processors (transactions, caching) had a chance to proxy them
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor accessRuleAuthorizationAdvisor(ObjectProvider<SecurityService> securityService) {
+        var interceptor = new AuthorizationManagerBeforeMethodInterceptor(
+                AnnotationMatchingPointcut.forMethodAnnotation(Authorize.class),
+                new AccessRuleAuthorizationManager(securityService)
+        );
+        interceptor.setOrder(AuthorizationInterceptorsOrder.PRE_AUTHORIZE.getOrder());
+        return interceptor;
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration configuration) throws Exception {
         return configuration.getAuthenticationManager();
@@ -3,9 +3,10 @@ package com.arsiwooqq.userservice.security;
 import com.arsiwooqq.userservice.dto.CardCreateRequest;
 import com.arsiwooqq.userservice.dto.UserCreateRequest;
 import com.arsiwooqq.userservice.exception.AccessDeniedException;
-import com.arsiwooqq.userservice.repository.CardRepository;
+import com.arsiwooqq.userservice.service.CardService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 import java.util.UUID;
@@ -14,7 +15,8 @@ import java.util.UUID;
 @RequiredArgsConstructor
 @Slf4j
 public class SecurityService {
-    private final CardRepository cardRepository;
+    private final CardService cardService;
+    private final ObjectProvider<CardOwners> cardOwners;
 
     public boolean canCreateUser(String userId, UserCreateRequest request) {
         log.debug("Authorizing user creation with id {} by user with id {}", request != null ? request.userId() : "null", userId);
@@ -38,9 +40,13 @@ public class SecurityService {
             throw new AccessDeniedException("You do not have rights to access this card");
         }
 
-        return cardRepository.findCardById(cardId)
-                .filter(card -> card.getUser().getUserId().equals(userId))
-                .map(card -> true)
-                .orElseThrow(() -> new AccessDeniedException("You do not have rights to access this card"));
+        if (cardService.isOwnedBy(cardId, userId)) {
+            var owners = cardOwners.getIfAvailable();
+            if (owners != null) {
+                owners.remember(cardId, userId);
+            }
+            return true;
+        }
+        throw new AccessDeniedException("You do not have rights to access this card");
     }
 }
@@ -0,0 +1,154 @@
+package com.arsiwooqq.userservice.security;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+    Remembers tokens the auth service has confirmed as valid, so repeated requests with the same token
+    skip the remote call. Only positive results are cached, keyed by SHA-256 of the token,
+    and never for longer than the token's own "exp".
+    With the revocation epoch enabled, the auth service bumps a Redis counter on revocation
+    and every instance drops its cached results once it notices the change.
+ */
+@Component
+@Slf4j
+public class TokenValidationCache {
+    private final Cache<String, Long> validTokens;
+    private final StringRedisTemplate redisTemplate;
+    private final Timer remoteValidation;
+    private final Counter timeSaved;
+    private final boolean enabled;
+    private final boolean revocationEpochEnabled;
+    private final String revocationEpochKey;
+    private volatile String revocationEpoch;
+
+    public TokenValidationCache(MeterRegistry meterRegistry,
+                                StringRedisTemplate redisTemplate,
+                                @Value("${app.security.token-cache.enabled:true}") boolean enabled,
+                                @Value("${app.security.token-cache.maximum-size:10000}") long maximumSize,
+                                @Value("${app.security.token-cache.time-to-live:300}") long timeToLive,
+                                @Value("${app.security.token-cache.revocation-epoch.enabled:false}") boolean revocationEpochEnabled,
+                                @Value("${app.security.token-cache.revocation-epoch.key:auth:revocation-epoch}") String revocationEpochKey) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.revocationEpochEnabled = revocationEpochEnabled;
+        this.revocationEpochKey = revocationEpochKey;
+        this.validTokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry(Duration.ofSeconds(timeToLive)))
+                .recordStats()
+                .build();
+        this.remoteValidation = meterRegistry.timer("security.token.validation.remote");
+        this.timeSaved = Counter.builder("security.token.validation.time.saved")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, validTokens, "token-validation");
+    }
+
+    // remote answers null when the auth service could not be asked, which is passed on and not cached
+    public Boolean validate(DecodedJWT jwt, Supplier<Boolean> remote) {
+        if (!enabled) {
+            return remote.get();
+        }
+
+        var key = hash(jwt.getToken());
+        if (validTokens.getIfPresent(key) != null) {
+            timeSaved.increment(remoteValidation.mean(TimeUnit.SECONDS));
+            return true;
+        }
+
+        var sample = Timer.start();
+        Boolean valid;
+        try {
+            valid = remote.get();
+        } finally {
+            sample.stop(remoteValidation);
+        }
+
+        if (Boolean.TRUE.equals(valid)) {
+            remember(key, jwt);
+        }
+        return valid;
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.token-cache.revocation-epoch.poll-interval:5000}")
+    public void checkRevocationEpoch() {
+        if (!enabled || !revocationEpochEnabled) {
+            return;
+        }
+
+        String epoch;
+        try {
+            epoch = redisTemplate.opsForValue().get(revocationEpochKey);
+        } catch (RuntimeException e) {
+            // revocations can not be seen, stop trusting cached results
+            log.warn("Failed to read token revocation epoch: {}", e.getMessage());
+            validTokens.invalidateAll();
+            return;
+        }
+
+        if (!Objects.equals(epoch, revocationEpoch)) {
+            log.debug("Token revocation epoch changed to {}, dropping cached validation results", epoch);
+            validTokens.invalidateAll();
+            revocationEpoch = epoch;
+        }
+    }
+
+    private void remember(String key, DecodedJWT jwt) {
+        var expiresAt = jwt.getExpiresAt();
+        var expiresAtMillis = expiresAt != null ? expiresAt.getTime() : Long.MAX_VALUE;
+        if (expiresAtMillis > System.currentTimeMillis()) {
+            validTokens.put(key, expiresAtMillis);
+        }
+    }
+
+    private String hash(String token) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record TokenExpiry(Duration maxTimeToLive) implements Expiry<String, Long> {
+        @Override
+        public long expireAfterCreate(@NonNull String key, @NonNull Long expiresAt, long currentTime) {
+            var untilExpiry = TimeUnit.MILLISECONDS.toNanos(expiresAt - System.currentTimeMillis());
+            return Math.max(0, Math.min(untilExpiry, maxTimeToLive.toNanos()));
+        }
+
+        @Override
+        public long expireAfterUpdate(@NonNull String key, @NonNull Long expiresAt, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, expiresAt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(@NonNull String key, @NonNull Long expiresAt, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -2,9 +2,12 @@ package com.arsiwooqq.userservice.service;
 
 import com.arsiwooqq.userservice.dto.CardCreateRequest;
 import com.arsiwooqq.userservice.dto.CardResponse;
+import com.arsiwooqq.userservice.dto.CursorPage;
+import com.arsiwooqq.userservice.dto.PageCount;
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.UUID;
 
@@ -13,8 +16,16 @@ public interface CardService {
 
     CardResponse getById(UUID id);
 
+    boolean isOwnedBy(UUID id, String userId);
+
     Page<CardResponse> getAllPaged(Pageable pageable);
 
+    Slice<CardResponse> getAllPaged(Pageable pageable, PageCount count);
+
+    CursorPage<CardResponse> getAllByCursor(String cursor, int size);
+
+    Page<CardResponse> getAllByUserId(String userId, Pageable pageable);
+
     @Transactional
     void delete(UUID id);
 }
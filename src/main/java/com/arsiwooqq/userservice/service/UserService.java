@@ -1,11 +1,14 @@
 package com.arsiwooqq.userservice.service;
 
+import com.arsiwooqq.userservice.dto.CursorPage;
+import com.arsiwooqq.userservice.dto.PageCount;
 import com.arsiwooqq.userservice.dto.UserCreateRequest;
 import com.arsiwooqq.userservice.dto.UserResponse;
 import com.arsiwooqq.userservice.dto.UserUpdateRequest;
 import com.arsiwooqq.userservice.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
 
 public interface UserService {
@@ -13,18 +16,27 @@ public interface UserService {
 
     User getEntityByUserId(String userId);
 
-    @Transactional(readOnly = true)
     UserResponse getByUserId(String userId);
 
+    UserResponse getByUserId(String userId, boolean includeCards);
+
     UserResponse getByEmail(String email);
 
+    UserResponse getByEmail(String email, boolean includeCards);
+
     Page<UserResponse> getAllPaged(Pageable pageable);
 
+    Slice<UserResponse> getAllPaged(Pageable pageable, PageCount count);
+
+    CursorPage<UserResponse> getAllByCursor(String cursor, int size);
+
     @Transactional
     void update(String userId, UserUpdateRequest request);
 
     @Transactional
     void delete(String userId);
 
-    void evictUserCache(User user);
+    void refreshUserCache(User user);
+
+    void refreshCardsOf(String userId);
 }
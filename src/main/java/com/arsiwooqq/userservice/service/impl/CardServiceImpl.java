@@ -1,20 +1,34 @@
 package com.arsiwooqq.userservice.service.impl;
 
+import com.arsiwooqq.userservice.cache.AfterCommit;
+import com.arsiwooqq.userservice.cache.CacheInvalidator;
+import com.arsiwooqq.userservice.cache.CacheKey;
+import com.arsiwooqq.userservice.cache.NegativeLookupCache;
+import com.arsiwooqq.userservice.cache.VersionedCacheWriter;
 import com.arsiwooqq.userservice.dto.CardCreateRequest;
 import com.arsiwooqq.userservice.dto.CardResponse;
+import com.arsiwooqq.userservice.dto.CursorPage;
+import com.arsiwooqq.userservice.dto.PageCount;
 import com.arsiwooqq.userservice.exception.CardNotFoundException;
 import com.arsiwooqq.userservice.exception.CardNumberAlreadyExistsException;
 import com.arsiwooqq.userservice.mapper.CardMapper;
 import com.arsiwooqq.userservice.repository.CardRepository;
+import com.arsiwooqq.userservice.security.CardOwners;
 import com.arsiwooqq.userservice.service.CardService;
 import com.arsiwooqq.userservice.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -23,8 +37,17 @@ public class CardServiceImpl implements CardService {
     private final UserService userService;
     private final CardRepository cardRepository;
     private final CardMapper cardMapper;
+    private final NegativeLookupCache negativeLookupCache;
+    private final CacheManager cacheManager;
+    private final CacheInvalidator cacheInvalidator;
+    private final VersionedCacheWriter versionedCacheWriter;
+    private final ObjectProvider<CardOwners> cardOwners;
+    public static final String CARD_CACHE = "CARD_CACHE";
+    // cards do not change once created, so every read has the same version and only a delete tombstone outranks it
+    public static final long CARD_VERSION = 0;
 
     @Override
+    @Transactional
     public CardResponse create(CardCreateRequest request) {
         if (cardRepository.existsByNumber(request.number())) {
             throw new CardNumberAlreadyExistsException(request.number());
@@ -34,39 +57,125 @@ public class CardServiceImpl implements CardService {
         var card = cardMapper.toEntity(request);
         card.setUser(user);
         cardRepository.save(card);
-        userService.evictUserCache(user);
+        if (!user.getCards().contains(card)) {
+            user.getCards().add(card);
+        }
+        userService.refreshUserCache(user);
         return cardMapper.toResponse(card);
     }
 
     @Override
     public CardResponse getById(UUID id) {
-        return cardRepository.findCardById(id)
-                .map(cardMapper::toResponse)
-                .orElseThrow(() -> new CardNotFoundException(id));
+        var cached = getCached(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        if (negativeLookupCache.isMissing(NegativeLookupCache.CARD_ID, id)) {
+            throw new CardNotFoundException(id);
+        }
+
+        var card = cardRepository.findResponseById(id);
+        if (card.isEmpty()) {
+            negativeLookupCache.markMissing(NegativeLookupCache.CARD_ID, id);
+            throw new CardNotFoundException(id);
+        }
+
+        cache(card.get());
+        return card.get();
     }
 
+    // answered from the card cache when the card is there, otherwise with an existence query
     @Override
+    public boolean isOwnedBy(UUID id, String userId) {
+        var cached = getCached(id);
+        return cached != null
+                ? userId.equals(cached.userId())
+                : cardRepository.existsByIdAndUserUserId(id, userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<CardResponse> getAllPaged(Pageable pageable) {
-        var ids = cardRepository.findCardIds(pageable);
-        var cards = cardRepository.findAllWithUsersByIds(ids.getContent())
-                .stream()
-                .map(cardMapper::toResponse)
-                .toList();
-        return new PageImpl<>(cards, pageable, ids.getTotalElements());
+        var rows = cardRepository.findCardIds(pageable);
+        var cards = getResponses(WindowedPage.ids(rows));
+        return new PageImpl<>(cards, pageable, WindowedPage.total(rows, pageable, cardRepository::count));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<CardResponse> getAllPaged(Pageable pageable, PageCount count) {
+        return switch (count) {
+            case EXACT -> getAllPaged(pageable);
+            case NONE -> getSlice(pageable);
+            case ESTIMATED -> EstimatedPage.of(getSlice(pageable), cardRepository::estimateCount, cardRepository::count);
+        };
+    }
+
+    @Override
+    public CursorPage<CardResponse> getAllByCursor(String cursor, int size) {
+        var after = KeysetCursor.decode(cursor);
+        // one extra id tells whether there is a next slice
+        var limit = Limit.of(size + 1);
+        var ids = after == null
+                ? cardRepository.findFirstCardIds(limit)
+                : cardRepository.findCardIdsAfter(after, limit);
+        var hasNext = ids.size() > size;
+        var sliceIds = hasNext ? ids.subList(0, size) : ids;
+
+        var cards = getResponses(sliceIds);
+        return new CursorPage<>(cards, hasNext ? KeysetCursor.encode(sliceIds.get(size - 1)) : null);
+    }
+
+    @Override
+    public Page<CardResponse> getAllByUserId(String userId, Pageable pageable) {
+        var cards = cardRepository.findResponsesByUserId(userId, pageable);
+        if (cards.isEmpty()) {
+            // tells an unknown user from one without cards, throws UserNotFoundException
+            userService.getByUserId(userId, false);
+        }
+        return cards;
     }
 
     @Override
     @Transactional
     public void delete(UUID id) {
-        cardRepository.findCardById(id)
-                .ifPresentOrElse(
-                        card -> {
-                            cardRepository.delete(id);
-                            userService.evictUserCache(card.getUser());
-                        },
-                        () -> {
-                            throw new CardNotFoundException(id);
-                        }
-                );
+        var ownerId = getConfirmedOwner(id);
+        if (ownerId == null) {
+            ownerId = cardRepository.findOwnerUserIdById(id)
+                    .orElseThrow(() -> new CardNotFoundException(id));
+        }
+        if (cardRepository.delete(id) == 0) {
+            throw new CardNotFoundException(id);
+        }
+        cacheInvalidator.evict(new CacheKey(CARD_CACHE, id.toString()));
+        // keep readers that loaded the card before the delete from caching it again
+        AfterCommit.run(() -> versionedCacheWriter.tombstone(CARD_CACHE, id.toString()));
+        userService.refreshCardsOf(ownerId);
+    }
+
+    private Slice<CardResponse> getSlice(Pageable pageable) {
+        var ids = cardRepository.findCardIdSlice(pageable);
+        var cards = getResponses(ids.getContent());
+        return new SliceImpl<>(cards, pageable, ids.hasNext());
+    }
+
+    private List<CardResponse> getResponses(List<UUID> ids) {
+        return KeysetCursor.inIdOrder(cardRepository.findResponsesByIds(ids), ids, CardResponse::id);
+    }
+
+    // owner confirmed while authorizing this request, null for admins and outside a request
+    private String getConfirmedOwner(UUID id) {
+        var owners = cardOwners.getIfAvailable();
+        return owners != null ? owners.get(id) : null;
+    }
+
+    private CardResponse getCached(UUID id) {
+        var cache = cacheManager.getCache(CARD_CACHE);
+        return cache != null ? cache.get(id.toString(), CardResponse.class) : null;
+    }
+
+    private void cache(CardResponse card) {
+        versionedCacheWriter.put(CARD_CACHE, card.id().toString(), card, CARD_VERSION);
     }
 }
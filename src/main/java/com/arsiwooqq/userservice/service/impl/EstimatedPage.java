@@ -0,0 +1,31 @@
+package com.arsiwooqq.userservice.service.impl;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+
+import java.util.function.LongSupplier;
+
+/*
+    Page whose total comes from table statistics instead of a count query.
+    The estimate is negative until the table has been analyzed, then the exact count is used once.
+    It is never reported below the rows the client has already been shown.
+ */
+final class EstimatedPage {
+
+    private EstimatedPage() {
+    }
+
+    static <T> Page<T> of(Slice<T> slice, LongSupplier estimate, LongSupplier exact) {
+        var total = estimate.getAsLong();
+        if (total < 0) {
+            total = exact.getAsLong();
+        }
+
+        var pageable = slice.getPageable();
+        var seen = (pageable.isPaged() ? pageable.getOffset() : 0)
+                + slice.getNumberOfElements()
+                + (slice.hasNext() ? 1 : 0);
+        return new PageImpl<>(slice.getContent(), pageable, Math.max(total, seen));
+    }
+}
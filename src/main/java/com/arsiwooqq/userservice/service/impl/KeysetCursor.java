@@ -0,0 +1,55 @@
+package com.arsiwooqq.userservice.service.impl;
+
+import com.arsiwooqq.userservice.exception.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/*
+    Keyset pagination over the primary key: a slice is the next rows with id greater than the last one seen,
+    which is an index range scan however deep the client is. Rows inserted meanwhile never shift
+    or repeat already returned ones. The cursor is the last id, encoded so clients treat it as opaque.
+ */
+final class KeysetCursor {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private KeysetCursor() {
+    }
+
+    static String encode(UUID lastId) {
+        var bytes = ByteBuffer.allocate(16)
+                .putLong(lastId.getMostSignificantBits())
+                .putLong(lastId.getLeastSignificantBits())
+                .array();
+        return ENCODER.encodeToString(bytes);
+    }
+
+    // null for an empty cursor, i.e. the first slice
+    static UUID decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            var bytes = DECODER.decode(cursor);
+            if (bytes.length != 16) {
+                throw new InvalidCursorException();
+            }
+            var buffer = ByteBuffer.wrap(bytes);
+            return new UUID(buffer.getLong(), buffer.getLong());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException();
+        }
+    }
+
+    // rows fetched by ids come back in no particular order
+    static <T> List<T> inIdOrder(List<T> items, List<UUID> ids, Function<T, UUID> id) {
+        return items.stream()
+                .sorted(Comparator.comparingInt(item -> ids.indexOf(id.apply(item))))
+                .toList();
+    }
+}
@@ -1,5 +1,16 @@
 package com.arsiwooqq.userservice.service.impl;
 
+import com.arsiwooqq.userservice.cache.AfterCommit;
+import com.arsiwooqq.userservice.cache.CacheEntry;
+import com.arsiwooqq.userservice.cache.CacheInvalidationPublisher;
+import com.arsiwooqq.userservice.cache.CacheInvalidator;
+import com.arsiwooqq.userservice.cache.CacheKey;
+import com.arsiwooqq.userservice.cache.CoalescingLoader;
+import com.arsiwooqq.userservice.cache.NegativeLookupCache;
+import com.arsiwooqq.userservice.cache.RefreshAhead;
+import com.arsiwooqq.userservice.cache.VersionedCacheWriter;
+import com.arsiwooqq.userservice.dto.CursorPage;
+import com.arsiwooqq.userservice.dto.PageCount;
 import com.arsiwooqq.userservice.dto.UserCreateRequest;
 import com.arsiwooqq.userservice.dto.UserResponse;
 import com.arsiwooqq.userservice.dto.UserUpdateRequest;
@@ -7,17 +18,25 @@ import com.arsiwooqq.userservice.entity.User;
 import com.arsiwooqq.userservice.exception.UserAlreadyExistsException;
 import com.arsiwooqq.userservice.exception.UserNotFoundException;
 import com.arsiwooqq.userservice.mapper.UserMapper;
+import com.arsiwooqq.userservice.repository.UserCardRow;
 import com.arsiwooqq.userservice.repository.UserRepository;
 import com.arsiwooqq.userservice.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -25,13 +44,20 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final CacheManager cacheManager;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final NegativeLookupCache negativeLookupCache;
+    private final CacheInvalidator cacheInvalidator;
+    private final CoalescingLoader coalescingLoader;
+    private final RefreshAhead refreshAhead;
+    private final VersionedCacheWriter versionedCacheWriter;
     public static final String USER_CACHE = "USER_CACHE";
+    public static final String USER_PROFILE_CACHE = "USER_PROFILE_CACHE";
+    public static final String USER_EMAIL_CACHE = "USER_EMAIL_CACHE";
+
+    @Value("${app.cache.write-through:true}")
+    private boolean writeThrough;
 
     @Override
-    @Caching(put = {
-            @CachePut(value = USER_CACHE, key = "#result.userId()"),
-            @CachePut(value = USER_CACHE, key = "#result.email()")
-    })
     public UserResponse create(UserCreateRequest request) {
         if (userRepository.existsByEmail(request.email())) {
             throw new UserAlreadyExistsException(request.email());
@@ -41,45 +67,98 @@ public class UserServiceImpl implements UserService {
             throw new UserAlreadyExistsException(request.userId());
         }
 
-        return userMapper.toResponse(
-                userRepository.save(userMapper.toEntity(request))
-        );
+        var user = userRepository.save(userMapper.toEntity(request));
+        var userResponse = userMapper.toResponse(user);
+
+        negativeLookupCache.invalidate(NegativeLookupCache.USER_ID, userResponse.userId());
+        negativeLookupCache.invalidate(NegativeLookupCache.USER_EMAIL, userResponse.email());
+
+        cacheById(USER_CACHE, userResponse, user.getVersion());
+        cacheById(USER_PROFILE_CACHE, withoutCards(userResponse), user.getVersion());
+        cacheEmailIndex(userResponse);
+
+        return userResponse;
     }
 
     @Override
-    @Transactional(readOnly = true)
     public UserResponse getByUserId(String userId) {
-        var userResponse = userRepository.findUserByUserId(userId)
-                .map(userMapper::toResponse)
-                .orElseThrow(() -> new UserNotFoundException(userId));
+        return getByUserId(userId, true);
+    }
 
-        cacheById(userResponse);
-        cacheByEmail(userResponse);
+    /*
+        Users are cached in two views, with cards (USER_CACHE) and profile only (USER_PROFILE_CACHE),
+        so a profile read neither joins cards nor carries them in its cache entry
+     */
+    @Override
+    public UserResponse getByUserId(String userId, boolean includeCards) {
+        var cacheName = cacheName(includeCards);
+        var cached = getCached(cacheName, userId);
+        if (cached != null) {
+            refreshAhead.onHit(cacheName, userId, () -> reload(userId, includeCards));
+            return cached;
+        }
 
-        return userResponse;
+        if (negativeLookupCache.isMissing(NegativeLookupCache.USER_ID, userId)) {
+            throw new UserNotFoundException(userId);
+        }
+
+        return coalescingLoader.load(loadNamespace(NegativeLookupCache.USER_ID, includeCards), userId,
+                () -> getCached(cacheName, userId), () -> loadByUserId(userId, includeCards));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public UserResponse getByEmail(String email) {
-        var userResponse = userRepository.findUserByEmail(email)
-                .map(userMapper::toResponse)
-                .orElseThrow(() -> new UserNotFoundException(email));
+        return getByEmail(email, true);
+    }
+
+    @Override
+    public UserResponse getByEmail(String email, boolean includeCards) {
+        var cacheName = cacheName(includeCards);
+        var cached = getCachedByEmail(cacheName, email);
+        if (cached != null) {
+            refreshAhead.onHit(cacheName, cached.userId(), () -> reload(cached.userId(), includeCards));
+            return cached;
+        }
 
-        cacheById(userResponse);
-        cacheByEmail(userResponse);
+        if (negativeLookupCache.isMissing(NegativeLookupCache.USER_EMAIL, email)) {
+            throw new UserNotFoundException(email);
+        }
 
-        return userResponse;
+        return coalescingLoader.load(loadNamespace(NegativeLookupCache.USER_EMAIL, includeCards), email,
+                () -> getCachedByEmail(cacheName, email), () -> loadByEmail(email, includeCards));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<UserResponse> getAllPaged(Pageable pageable) {
-        var ids = userRepository.findUserIds(pageable);
-        var users = userRepository.findAllWithCardsByIds(ids.getContent())
-                .stream()
-                .map(userMapper::toResponse)
-                .toList();
-        return new PageImpl<>(users, pageable, ids.getTotalElements());
+        var rows = userRepository.findUserIds(pageable);
+        var users = getResponses(WindowedPage.ids(rows));
+        return new PageImpl<>(users, pageable, WindowedPage.total(rows, pageable, userRepository::count));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<UserResponse> getAllPaged(Pageable pageable, PageCount count) {
+        return switch (count) {
+            case EXACT -> getAllPaged(pageable);
+            case NONE -> getSlice(pageable);
+            case ESTIMATED -> EstimatedPage.of(getSlice(pageable), userRepository::estimateCount, userRepository::count);
+        };
+    }
+
+    @Override
+    public CursorPage<UserResponse> getAllByCursor(String cursor, int size) {
+        var after = KeysetCursor.decode(cursor);
+        // one extra id tells whether there is a next slice
+        var limit = Limit.of(size + 1);
+        var ids = after == null
+                ? userRepository.findFirstUserIds(limit)
+                : userRepository.findUserIdsAfter(after, limit);
+        var hasNext = ids.size() > size;
+        var sliceIds = hasNext ? ids.subList(0, size) : ids;
+
+        var users = getResponses(sliceIds);
+        return new CursorPage<>(users, hasNext ? KeysetCursor.encode(sliceIds.get(size - 1)) : null);
     }
 
     @Override
@@ -92,10 +171,12 @@ public class UserServiceImpl implements UserService {
                                     !user.getEmail().equals(request.email())) {
                                 throw new UserAlreadyExistsException(request.email());
                             }
+                            var oldEmail = user.getEmail();
                             userMapper.update(request, user);
                             userRepository.update(user.getId(), user.getName(), user.getSurname(), user.getBirthDate(),
                                     user.getEmail());
-                            evictUserCache(user);
+                            negativeLookupCache.invalidate(NegativeLookupCache.USER_EMAIL, user.getEmail());
+                            refreshUserCache(user, oldEmail);
                         },
                         () -> {
                             throw new UserNotFoundException(userId);
@@ -109,8 +190,21 @@ public class UserServiceImpl implements UserService {
         userRepository.findUserByUserId(userId)
                 .ifPresentOrElse(
                         user -> {
+                            var keys = new ArrayList<CacheKey>();
+                            keys.add(new CacheKey(USER_CACHE, user.getUserId()));
+                            keys.add(new CacheKey(USER_PROFILE_CACHE, user.getUserId()));
+                            keys.add(new CacheKey(USER_EMAIL_CACHE, user.getEmail()));
+                            user.getCards().forEach(card ->
+                                    keys.add(new CacheKey(CardServiceImpl.CARD_CACHE, card.getId().toString())));
                             userRepository.deleteByUserId(userId);
-                            evictUserCache(user);
+                            cacheInvalidator.evict(keys);
+                            // keep readers that loaded the user before the delete from caching it again
+                            AfterCommit.run(() -> {
+                                versionedCacheWriter.tombstone(USER_CACHE, user.getUserId());
+                                versionedCacheWriter.tombstone(USER_PROFILE_CACHE, user.getUserId());
+                                user.getCards().forEach(card -> versionedCacheWriter.tombstone(
+                                        CardServiceImpl.CARD_CACHE, card.getId().toString()));
+                            });
                         },
                         () -> {
                             throw new UserNotFoundException(userId);
@@ -125,29 +219,155 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public void evictUserCache(User user) {
-        evictUserCache(user.getUserId(), user.getEmail());
+    public void refreshUserCache(User user) {
+        refreshUserCache(user, user.getEmail());
     }
 
-    private void evictUserCache(String userId, String email) {
-        var cache = cacheManager.getCache(USER_CACHE);
-        if (cache != null) {
-            cache.evict(userId);
-            cache.evict(email);
+    /*
+        Only the card list of the user changed, so the user row is not loaded: the entry with cards
+        is evicted at the new version in both modes, the profile and the email index stay valid.
+     */
+    @Override
+    public void refreshCardsOf(String userId) {
+        userRepository.incrementVersionByUserId(userId);
+        var version = userRepository.findVersionByUserId(userId);
+        cacheInvalidator.evict(List.of(new CacheKey(USER_CACHE, userId)), version);
+    }
+
+    /*
+        Every change bumps the user version, so cached values loaded before it are rejected.
+        Write-through: the response is built from the mutated entity inside the transaction
+        and replaces the cache entries of both views and the email index once it commits.
+        Otherwise the entries are evicted after commit at the new version (see CacheInvalidator).
+     */
+    private void refreshUserCache(User user, String oldEmail) {
+        userRepository.incrementVersion(user.getId());
+        var version = userRepository.findVersionById(user.getId());
+        if (!writeThrough) {
+            evictUserCache(user.getUserId(), oldEmail, version);
+            return;
         }
+
+        var userResponse = userMapper.toResponse(user);
+        AfterCommit.run(() -> {
+            var entries = new ArrayList<CacheEntry>(3);
+            entries.add(new CacheEntry(new CacheKey(USER_CACHE, userResponse.userId()), userResponse, version));
+            entries.add(new CacheEntry(new CacheKey(USER_PROFILE_CACHE, userResponse.userId()),
+                    withoutCards(userResponse), version));
+            entries.add(CacheEntry.of(new CacheKey(USER_EMAIL_CACHE, userResponse.email()), userResponse.userId()));
+            var evictions = oldEmail.equals(userResponse.email())
+                    ? List.<CacheKey>of()
+                    : List.of(new CacheKey(USER_EMAIL_CACHE, oldEmail));
+            cacheInvalidator.writeThrough(entries, evictions);
+        });
     }
 
-    private void cacheById(UserResponse user) {
-        var cache = cacheManager.getCache(USER_CACHE);
-        if (cache != null) {
-            cache.put(user.userId(), user);
+    private void evictUserCache(String userId, String email, long version) {
+        cacheInvalidator.evict(List.of(new CacheKey(USER_CACHE, userId), new CacheKey(USER_PROFILE_CACHE, userId)),
+                version);
+        cacheInvalidator.evict(new CacheKey(USER_EMAIL_CACHE, email));
+    }
+
+    private Slice<UserResponse> getSlice(Pageable pageable) {
+        var ids = userRepository.findUserIdSlice(pageable);
+        var users = getResponses(ids.getContent());
+        return new SliceImpl<>(users, pageable, ids.hasNext());
+    }
+
+    private List<UserResponse> getResponses(List<UUID> ids) {
+        return UserCardRow.toResponses(userRepository.findResponseRowsByIds(ids), ids);
+    }
+
+    private UserResponse loadByUserId(String userId, boolean includeCards) {
+        var loaded = readOnlyTransactionTemplate.execute(status -> (includeCards
+                ? userRepository.findWithCardsByUserId(userId)
+                : userRepository.findUserByUserId(userId))
+                .map(user -> toVersionedResponse(user, includeCards))
+                .orElse(null));
+
+        if (loaded == null) {
+            negativeLookupCache.markMissing(NegativeLookupCache.USER_ID, userId);
+            throw new UserNotFoundException(userId);
+        }
+
+        cacheById(cacheName(includeCards), loaded.response(), loaded.version());
+        cacheEmailIndex(loaded.response());
+
+        return loaded.response();
+    }
+
+    private UserResponse loadByEmail(String email, boolean includeCards) {
+        var loaded = readOnlyTransactionTemplate.execute(status -> (includeCards
+                ? userRepository.findWithCardsByEmail(email)
+                : userRepository.findUserByEmail(email))
+                .map(user -> toVersionedResponse(user, includeCards))
+                .orElse(null));
+
+        if (loaded == null) {
+            negativeLookupCache.markMissing(NegativeLookupCache.USER_EMAIL, email);
+            throw new UserNotFoundException(email);
+        }
+
+        cacheById(cacheName(includeCards), loaded.response(), loaded.version());
+        cacheEmailIndex(loaded.response());
+
+        return loaded.response();
+    }
+
+    private void reload(String userId, boolean includeCards) {
+        try {
+            loadByUserId(userId, includeCards);
+        } catch (UserNotFoundException e) {
+            cacheInvalidator.evict(new CacheKey(cacheName(includeCards), userId));
         }
     }
 
-    private void cacheByEmail(UserResponse user) {
-        var cache = cacheManager.getCache(USER_CACHE);
+    private String cacheName(boolean includeCards) {
+        return includeCards ? USER_CACHE : USER_PROFILE_CACHE;
+    }
+
+    // the views are loaded separately, a profile load must not answer a request for cards
+    private String loadNamespace(String lookup, boolean includeCards) {
+        return includeCards ? lookup : lookup + CacheInvalidationPublisher.SEPARATOR + USER_PROFILE_CACHE;
+    }
+
+    private UserResponse getCached(String cacheName, String userId) {
+        var cache = cacheManager.getCache(cacheName);
+        return cache != null ? cache.get(userId, UserResponse.class) : null;
+    }
+
+    private UserResponse getCachedByEmail(String cacheName, String email) {
+        var indexCache = cacheManager.getCache(USER_EMAIL_CACHE);
+        var userId = indexCache != null ? indexCache.get(email, String.class) : null;
+        if (userId == null) {
+            return null;
+        }
+
+        var cached = getCached(cacheName, userId);
+        // index entry may outlive an email change, never serve a user under a foreign email
+        return cached != null && email.equals(cached.email()) ? cached : null;
+    }
+
+    private VersionedResponse toVersionedResponse(User user, boolean includeCards) {
+        var response = includeCards ? userMapper.toResponse(user) : userMapper.toProfileResponse(user);
+        return new VersionedResponse(response, user.getVersion());
+    }
+
+    private UserResponse withoutCards(UserResponse user) {
+        return new UserResponse(user.userId(), user.name(), user.surname(), user.birthDate(), user.email(), null);
+    }
+
+    private void cacheById(String cacheName, UserResponse user, long version) {
+        versionedCacheWriter.put(cacheName, user.userId(), user, version);
+    }
+
+    private void cacheEmailIndex(UserResponse user) {
+        var cache = cacheManager.getCache(USER_EMAIL_CACHE);
         if (cache != null) {
-            cache.put(user.email(), user);
+            cache.put(user.email(), user.userId());
         }
     }
+
+    private record VersionedResponse(UserResponse response, long version) {
+    }
 }
@@ -0,0 +1,31 @@
+package com.arsiwooqq.userservice.service.impl;
+
+import com.arsiwooqq.userservice.repository.CountedId;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/*
+    Page of ids whose total comes from count(*) over() in the same query instead of a separate count.
+    A page past the end has no rows to carry the total, only then the count query runs.
+ */
+final class WindowedPage {
+
+    private WindowedPage() {
+    }
+
+    static List<UUID> ids(List<CountedId> rows) {
+        return rows.stream()
+                .map(CountedId::id)
+                .toList();
+    }
+
+    static long total(List<CountedId> rows, Pageable pageable, LongSupplier count) {
+        if (!rows.isEmpty()) {
+            return rows.get(0).total();
+        }
+        return pageable.isPaged() && pageable.getOffset() > 0 ? count.getAsLong() : 0;
+    }
+}
@@ -0,0 +1,101 @@
+package com.arsiwooqq.userservice.benchmark;
+
+import com.arsiwooqq.userservice.controller.UserController;
+import com.arsiwooqq.userservice.dto.UserCreateRequest;
+import com.arsiwooqq.userservice.dto.UserView;
+import com.arsiwooqq.userservice.security.AccessRuleAuthorizationManager;
+import com.arsiwooqq.userservice.security.SecurityService;
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+    Per-call authorization overhead of the previous @PreAuthorize expressions
+    and of the typed @Authorize rules, for a non-admin user (both sides of the rule are evaluated).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorizationBenchmark {
+    private PreAuthorizeAuthorizationManager spelManager;
+    private AccessRuleAuthorizationManager typedManager;
+    private Supplier<Authentication> authentication;
+    private MethodInvocation spelSelf;
+    private MethodInvocation typedSelf;
+    private MethodInvocation spelUserCreator;
+    private MethodInvocation typedUserCreator;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        var securityService = new SecurityService(null, null);
+        var context = new StaticApplicationContext();
+        context.getBeanFactory().registerSingleton("securityService", securityService);
+        context.refresh();
+
+        var expressionHandler = new DefaultMethodSecurityExpressionHandler();
+        expressionHandler.setApplicationContext(context);
+        spelManager = new PreAuthorizeAuthorizationManager();
+        spelManager.setExpressionHandler(expressionHandler);
+        typedManager = new AccessRuleAuthorizationManager(context.getBeanProvider(SecurityService.class));
+
+        var userId = UUID.randomUUID().toString();
+        var user = new TestingAuthenticationToken(userId, null, "ROLE_USER");
+        authentication = () -> user;
+
+        var request = new UserCreateRequest(userId, "TEST_NAME", "TEST_SURNAME", LocalDate.of(1990, 1, 1),
+                "test.user@example.com");
+        spelSelf = new SimpleMethodInvocation(new SpelEndpoints(),
+                SpelEndpoints.class.getMethod("getById", String.class), userId);
+        typedSelf = new SimpleMethodInvocation(null,
+                UserController.class.getMethod("getById", String.class, UserView.class), userId, UserView.FULL);
+        spelUserCreator = new SimpleMethodInvocation(new SpelEndpoints(),
+                SpelEndpoints.class.getMethod("create", UserCreateRequest.class), request);
+        typedUserCreator = new SimpleMethodInvocation(null,
+                UserController.class.getMethod("create", UserCreateRequest.class), request);
+    }
+
+    @Benchmark
+    public AuthorizationResult spelSelf() {
+        return spelManager.authorize(authentication, spelSelf);
+    }
+
+    @Benchmark
+    public AuthorizationResult typedSelf() {
+        return typedManager.authorize(authentication, typedSelf);
+    }
+
+    @Benchmark
+    public AuthorizationResult spelUserCreator() {
+        return spelManager.authorize(authentication, spelUserCreator);
+    }
+
+    @Benchmark
+    public AuthorizationResult typedUserCreator() {
+        return typedManager.authorize(authentication, typedUserCreator);
+    }
+
+    public static class SpelEndpoints {
+        @PreAuthorize("hasRole('ADMIN') or #userId.toString().equals(authentication.name)")
+        public void getById(String userId) {
+        }
+
+        @PreAuthorize("hasRole('ADMIN') or @securityService.canCreateUser(authentication.name, #request)")
+        public void create(UserCreateRequest request) {
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.arsiwooqq.userservice.benchmark;
+
+import com.arsiwooqq.userservice.cache.CompactCacheSerializer;
+import com.arsiwooqq.userservice.config.RedisConfig;
+import com.arsiwooqq.userservice.dto.CardResponse;
+import com.arsiwooqq.userservice.dto.UserResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Compares the Jackson cache serializer with the compact binary one.
+    Payload sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializerBenchmark {
+    @Param({"0", "3", "20"})
+    public int cards;
+
+    private Jackson2JsonRedisSerializer<UserResponse> jsonSerializer;
+    private CompactCacheSerializer compactSerializer;
+    private UserResponse user;
+    private byte[] json;
+    private byte[] compact;
+
+    @Setup
+    public void setUp() {
+        jsonSerializer = new Jackson2JsonRedisSerializer<>(RedisConfig.redisObjectMapper(), UserResponse.class);
+        compactSerializer = new CompactCacheSerializer();
+
+        var userId = UUID.randomUUID().toString();
+        var cardList = new ArrayList<CardResponse>();
+        for (int i = 0; i < cards; i++) {
+            cardList.add(new CardResponse(UUID.randomUUID(), userId, "4000123412341234" + i,
+                    "TEST HOLDER", LocalDate.now().plusYears(2)));
+        }
+        user = new UserResponse(userId, "TEST_NAME", "TEST_SURNAME", LocalDate.of(1990, 1, 1),
+                "test.user@example.com", cardList);
+
+        json = jsonSerializer.serialize(user);
+        compact = compactSerializer.serialize(user);
+        System.out.printf("%n%d cards: json %d bytes, compact %d bytes%n", cards, json.length, compact.length);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize(user);
+    }
+
+    @Benchmark
+    public byte[] compactSerialize() {
+        return compactSerializer.serialize(user);
+    }
+
+    @Benchmark
+    public Object jsonDeserialize() {
+        return jsonSerializer.deserialize(json);
+    }
+
+    @Benchmark
+    public Object compactDeserialize() {
+        return compactSerializer.deserialize(compact);
+    }
+}
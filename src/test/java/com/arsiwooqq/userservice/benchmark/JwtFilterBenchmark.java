@@ -0,0 +1,94 @@
+package com.arsiwooqq.userservice.benchmark;
+
+import com.arsiwooqq.userservice.cache.SingleFlight;
+import com.arsiwooqq.userservice.dto.ApiResponse;
+import com.arsiwooqq.userservice.security.JwtAuthentication;
+import com.arsiwooqq.userservice.security.JwtFilter;
+import com.arsiwooqq.userservice.security.JwtPrincipal;
+import com.arsiwooqq.userservice.security.LocalTokenVerifier;
+import com.arsiwooqq.userservice.security.TokenValidationCache;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Per-request cost of JwtFilter with a cached validation result (no auth service call).
+    decodeTwice reproduces the previous authentication path (two decodes, new authority per request),
+    decodeOnce is the current one. Run with -prof gc to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+    private JwtFilter jwtFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private String token;
+
+    @Setup
+    public void setUp() throws ServletException, IOException {
+        var meterRegistry = new SimpleMeterRegistry();
+        jwtFilter = new JwtFilter(
+                validateRequest -> ApiResponse.<Boolean>builder().success(true).data(true).build(),
+                new TokenValidationCache(meterRegistry, null, true, 1000, 300, false, ""),
+                new LocalTokenVerifier(meterRegistry, LocalTokenVerifier.Mode.REMOTE, "", "", "", 5, 0.0),
+                CircuitBreaker.ofDefaults("auth-service"),
+                Bulkhead.ofDefaults("auth-service"),
+                new SingleFlight<>(meterRegistry.counter("coalesced"))
+        );
+
+        token = JWT.create()
+                .withSubject(UUID.randomUUID().toString())
+                .withClaim("role", "ROLE_USER")
+                .withExpiresAt(Instant.now().plus(1, ChronoUnit.DAYS))
+                .sign(Algorithm.HMAC256("SECRET"));
+        request = new MockHttpServletRequest("GET", "/api/v1/users");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+
+        // warm up the validation cache
+        filter();
+    }
+
+    @Benchmark
+    public Authentication filter() throws ServletException, IOException {
+        jwtFilter.doFilterInternal(request, response, new MockFilterChain());
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    @Benchmark
+    public Authentication decodeTwice() {
+        var id = JWT.decode(token).getSubject();
+        var role = JWT.decode(token).getClaim("role").asString();
+        return new UsernamePasswordAuthenticationToken(id, null, List.of(new SimpleGrantedAuthority(role)));
+    }
+
+    @Benchmark
+    public Authentication decodeOnce() {
+        var principal = JwtPrincipal.from(JWT.decode(token));
+        return new JwtAuthentication(principal);
+    }
+}
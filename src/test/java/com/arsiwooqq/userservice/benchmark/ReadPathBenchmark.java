@@ -0,0 +1,125 @@
+package com.arsiwooqq.userservice.benchmark;
+
+import com.arsiwooqq.userservice.MarketplaceUserServiceApplication;
+import com.arsiwooqq.userservice.dto.UserResponse;
+import com.arsiwooqq.userservice.entity.Card;
+import com.arsiwooqq.userservice.entity.User;
+import com.arsiwooqq.userservice.mapper.UserMapper;
+import com.arsiwooqq.userservice.repository.CardRepository;
+import com.arsiwooqq.userservice.repository.UserCardRow;
+import com.arsiwooqq.userservice.repository.UserRepository;
+import com.redis.testcontainers.RedisContainer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Reading one page of users with their cards.
+    entityPage is the previous read path (managed entities mapped by UserMapper),
+    projectionPage is the current one (plain rows assembled into responses).
+    Postgres and Redis run in containers, so Docker is required. Run with -prof gc and compare gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadPathBenchmark {
+    @Param({"20", "100"})
+    public int pageSize;
+
+    @Param({"0", "3"})
+    public int cardsPerUser;
+
+    private PostgreSQLContainer<?> postgres;
+    private RedisContainer redis;
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private UserMapper userMapper;
+    private TransactionTemplate readOnlyTransactionTemplate;
+    private List<UUID> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>(PostgreSQLContainer.IMAGE);
+        postgres.start();
+        redis = new RedisContainer(RedisContainer.DEFAULT_IMAGE_NAME);
+        redis.start();
+
+        context = new SpringApplicationBuilder(MarketplaceUserServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "spring.data.redis.host=" + redis.getHost(),
+                        "spring.data.redis.port=" + redis.getFirstMappedPort(),
+                        "eureka.client.enabled=false",
+                        "grpc.server.port=-1"
+                )
+                .run();
+        userRepository = context.getBean(UserRepository.class);
+        userMapper = context.getBean(UserMapper.class);
+        readOnlyTransactionTemplate = context.getBean("readOnlyTransactionTemplate", TransactionTemplate.class);
+
+        var cardRepository = context.getBean(CardRepository.class);
+        ids = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            var user = userRepository.save(createUser(i));
+            for (int j = 0; j < cardsPerUser; j++) {
+                cardRepository.save(createCard(user, i * cardsPerUser + j));
+            }
+            ids.add(user.getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        redis.stop();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public List<UserResponse> entityPage() {
+        return readOnlyTransactionTemplate.execute(status -> userRepository.findAllWithCardsByIds(ids)
+                .stream()
+                .map(userMapper::toResponse)
+                .toList());
+    }
+
+    @Benchmark
+    public List<UserResponse> projectionPage() {
+        return readOnlyTransactionTemplate.execute(status ->
+                UserCardRow.toResponses(userRepository.findResponseRowsByIds(ids), ids));
+    }
+
+    private User createUser(int i) {
+        var user = new User();
+        user.setUserId(UUID.randomUUID().toString());
+        user.setName("TEST_NAME");
+        user.setSurname("TEST_SURNAME");
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        user.setEmail("test.user" + i + "@example.com");
+        return user;
+    }
+
+    private Card createCard(User user, int i) {
+        var card = new Card();
+        card.setUser(user);
+        card.setNumber("4000123412341234" + i);
+        card.setHolder("TEST HOLDER");
+        card.setExpirationDate(LocalDate.now().plusYears(2));
+        return card;
+    }
+}
@@ -0,0 +1,186 @@
+package com.arsiwooqq.userservice.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidatorTest {
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private VersionedCacheWriter versionedCacheWriter;
+
+    @Mock
+    private ExecutorService executor;
+
+    private CacheInvalidator cacheInvalidator;
+
+    @BeforeEach
+    void setUp() {
+        cacheInvalidator = new CacheInvalidator(cacheManager, redisTemplate, versionedCacheWriter, 10, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should evict immediately outside a transaction")
+    void givenNoTransaction_whenEvict_thenSendsImmediately() {
+        // When
+        cacheInvalidator.evict(new CacheKey("CACHE", "KEY"));
+
+        // Then
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @DisplayName("Should collect keys and send them once after commit")
+    void givenTransaction_whenEvictTwiceAndCommit_thenSendsOnce() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any());
+
+        // When
+        cacheInvalidator.evict(new CacheKey("CACHE", "FIRST"));
+        cacheInvalidator.evict(new CacheKey("CACHE", "SECOND"));
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then
+        verify(executor, times(1)).execute(any());
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @DisplayName("Should hand batch to background thread instead of sending it on commit")
+    void givenTransaction_whenCommit_thenDoesNotSendOnCommittingThread() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        cacheInvalidator.evict(new CacheKey("CACHE", "KEY"));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then
+        verify(executor, times(1)).execute(any());
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @DisplayName("Should queue batch for retry when background thread is saturated")
+    void givenSaturatedExecutor_whenCommit_thenRetriesLater() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        doThrow(new RejectedExecutionException("FULL")).when(executor).execute(any());
+
+        // When
+        cacheInvalidator.evict(new CacheKey("CACHE", "KEY"));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+        cacheInvalidator.retryFailed();
+
+        // Then
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @DisplayName("Should not evict anything when transaction rolls back")
+    void givenTransaction_whenRollback_thenSendsNothing() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        cacheInvalidator.evict(new CacheKey("CACHE", "KEY"));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Then
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @DisplayName("Should retry failed eviction in background")
+    void givenRedisFailure_whenRetry_thenSendsAgain() {
+        // Given
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("DOWN"))
+                .thenReturn(List.of());
+
+        // When
+        cacheInvalidator.evict(new CacheKey("CACHE", "KEY"));
+        cacheInvalidator.retryFailed();
+        cacheInvalidator.retryFailed();
+
+        // Then
+        verify(redisTemplate, times(2)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @DisplayName("Should write through on background thread")
+    void givenEntries_whenWriteThrough_thenDoesNotWriteOnCallingThread() {
+        // Given
+        var entry = new CacheEntry(new CacheKey("CACHE", "KEY"), "VALUE", 1);
+
+        // When
+        cacheInvalidator.writeThrough(List.of(entry), List.of());
+
+        // Then
+        verify(executor, times(1)).execute(any());
+        verify(versionedCacheWriter, never()).put(any(), any(), any(), anyLong());
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @DisplayName("Should evict entry instead when it cannot be written through")
+    void givenRedisFailure_whenWriteThrough_thenEvictsEntry() {
+        // Given
+        var entry = new CacheEntry(new CacheKey("CACHE", "KEY"), "VALUE", 1);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any());
+        when(versionedCacheWriter.put("CACHE", "KEY", "VALUE", 1))
+                .thenThrow(new RedisConnectionFailureException("DOWN"));
+
+        // When
+        cacheInvalidator.writeThrough(List.of(entry), List.of());
+
+        // Then
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    private void complete(int status) {
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
@@ -0,0 +1,76 @@
+package com.arsiwooqq.userservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingLoaderTest {
+    @Mock
+    private RedisLease lease;
+
+    @Test
+    @DisplayName("Should load and release lease when lease is acquired")
+    void givenLeaseAcquired_whenLoad_thenLoadsAndReleasesLease() {
+        // Given
+        var loader = createLoader(Duration.ofMillis(200));
+
+        // When
+        when(lease.tryAcquire(anyString(), any())).thenReturn("TOKEN");
+
+        var result = loader.load("user-id", "KEY", () -> null, () -> "VALUE");
+
+        // Then
+        assertEquals("VALUE", result);
+        verify(lease, times(1)).release("user-id::KEY", "TOKEN");
+    }
+
+    @Test
+    @DisplayName("Should return value cached by another instance instead of loading when lease is held elsewhere")
+    void givenLeaseHeldElsewhere_whenValueAppears_thenReturnsCachedValue() {
+        // Given
+        var loader = createLoader(Duration.ofSeconds(1));
+        var lookups = new AtomicInteger();
+
+        // When
+        when(lease.tryAcquire(anyString(), any())).thenReturn(null);
+
+        var result = loader.load("user-id", "KEY",
+                () -> lookups.incrementAndGet() > 2 ? "CACHED" : null,
+                () -> "LOADED");
+
+        // Then
+        assertEquals("CACHED", result);
+        verify(lease, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should load itself when lease is held elsewhere and value does not appear in time")
+    void givenLeaseHeldElsewhere_whenValueDoesNotAppear_thenLoads() {
+        // Given
+        var loader = createLoader(Duration.ofMillis(50));
+
+        // When
+        when(lease.tryAcquire(anyString(), any())).thenReturn(null);
+
+        var result = loader.load("user-id", "KEY", () -> null, () -> "LOADED");
+
+        // Then
+        assertEquals("LOADED", result);
+    }
+
+    private CoalescingLoader createLoader(Duration leaseWait) {
+        return new CoalescingLoader(new SimpleMeterRegistry(), lease, true, Duration.ofSeconds(5), leaseWait);
+    }
+}
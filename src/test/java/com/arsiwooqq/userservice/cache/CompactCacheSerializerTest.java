@@ -0,0 +1,84 @@
+package com.arsiwooqq.userservice.cache;
+
+import com.arsiwooqq.userservice.dto.CardResponse;
+import com.arsiwooqq.userservice.dto.UserResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactCacheSerializerTest {
+    private final CompactCacheSerializer serializer = new CompactCacheSerializer();
+
+    @Test
+    @DisplayName("Should read back user with cards exactly as written")
+    void givenUserWithCards_whenSerializeAndDeserialize_thenReturnsEqualUser() {
+        // Given
+        var userId = UUID.randomUUID().toString();
+        var user = new UserResponse(
+                userId,
+                "TEST_NAME",
+                "TEST_SURNAME",
+                LocalDate.now().minusYears(20),
+                "TEST@EMAIL",
+                List.of(new CardResponse(UUID.randomUUID(), userId, "TEST_NUMBER", "TEST_HOLDER",
+                        LocalDate.now().plusDays(1)))
+        );
+
+        // When
+        var result = serializer.deserialize(serializer.serialize(user));
+
+        // Then
+        assertEquals(user, result);
+    }
+
+    @Test
+    @DisplayName("Should keep null fields and null card list")
+    void givenUserWithNulls_whenSerializeAndDeserialize_thenKeepsNulls() {
+        // Given
+        var user = new UserResponse(UUID.randomUUID().toString(), "TEST_NAME", null, null, "TEST@EMAIL", null);
+
+        // When
+        var result = serializer.deserialize(serializer.serialize(user));
+
+        // Then
+        assertEquals(user, result);
+    }
+
+    @Test
+    @DisplayName("Should read back card as written")
+    void givenCard_whenSerializeAndDeserialize_thenReturnsEqualCard() {
+        // Given
+        var card = new CardResponse(UUID.randomUUID(), UUID.randomUUID().toString(), "TEST_NUMBER", "TEST_HOLDER",
+                LocalDate.now().plusDays(1));
+
+        // When
+        var result = serializer.deserialize(serializer.serialize(card));
+
+        // Then
+        assertEquals(card, result);
+    }
+
+    @Test
+    @DisplayName("Should treat value of another format version as missing")
+    void givenUnknownFormatVersion_whenDeserialize_thenReturnsNull() {
+        // Given
+        var json = "{\"userId\":\"1\"}".getBytes(StandardCharsets.UTF_8);
+
+        // When, Then
+        assertNull(serializer.deserialize(json));
+    }
+
+    @Test
+    @DisplayName("Should reject unsupported value types")
+    void givenUnsupportedType_whenSerialize_thenThrowsException() {
+        // Given, When, Then
+        assertThrows(SerializationException.class, () -> serializer.serialize("VALUE"));
+    }
+}
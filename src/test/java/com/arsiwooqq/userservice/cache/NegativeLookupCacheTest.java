@@ -0,0 +1,78 @@
+package com.arsiwooqq.userservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NegativeLookupCacheTest {
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NegativeLookupCache negativeLookupCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        negativeLookupCache = new NegativeLookupCache(redisTemplate, meterRegistry, 5);
+    }
+
+    @Test
+    @DisplayName("Should report lookup as not missing and count error when Redis is unavailable")
+    void givenRedisDown_whenIsMissing_thenReturnsFalse() {
+        // Given
+        when(redisTemplate.hasKey(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        // When, Then
+        assertFalse(negativeLookupCache.isMissing(NegativeLookupCache.USER_ID, "KEY"));
+        assertEquals(1, errors(NegativeLookupCache.USER_ID));
+    }
+
+    @Test
+    @DisplayName("Should not fail and count error when marking lookup as missing while Redis is unavailable")
+    void givenRedisDown_whenMarkMissing_thenDoesNotThrow() {
+        // Given
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        doThrow(new RedisConnectionFailureException("down"))
+                .when(valueOperations).set(anyString(), anyString(), any(Duration.class));
+
+        // When, Then
+        assertDoesNotThrow(() -> negativeLookupCache.markMissing(NegativeLookupCache.USER_ID, "KEY"));
+        assertEquals(1, errors(NegativeLookupCache.USER_ID));
+    }
+
+    @Test
+    @DisplayName("Should not fail and count error when invalidating while Redis is unavailable")
+    void givenRedisDown_whenInvalidate_thenDoesNotThrow() {
+        // Given
+        when(redisTemplate.delete(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        // When, Then
+        assertDoesNotThrow(() -> negativeLookupCache.invalidate(NegativeLookupCache.USER_EMAIL, "KEY"));
+        assertEquals(1, errors(NegativeLookupCache.USER_EMAIL));
+    }
+
+    private double errors(String namespace) {
+        return meterRegistry.counter("cache.negative.lookups", "namespace", namespace, "result", "error").count();
+    }
+}
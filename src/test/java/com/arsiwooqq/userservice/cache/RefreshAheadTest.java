@@ -0,0 +1,108 @@
+package com.arsiwooqq.userservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshAheadTest {
+    private static final String CACHE_NAME = "TEST_CACHE";
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache remote;
+
+    @Mock
+    private CacheInvalidationPublisher invalidationPublisher;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @Test
+    @DisplayName("Should reload entry in background when it has expired in Redis")
+    void givenExpiredRemoteEntry_whenHit_thenReloads() throws Exception {
+        // Given
+        var cache = createCache(1);
+        cache.put("KEY", "VALUE");
+        cache.resolveRemoteExpiresAt("KEY");
+        Thread.sleep(5);
+        var reloads = new AtomicInteger();
+
+        // When
+        when(cacheManager.getCache(CACHE_NAME)).thenReturn(cache);
+
+        createRefreshAhead().onHit(CACHE_NAME, "KEY", reloads::incrementAndGet);
+        awaitTasks();
+
+        // Then
+        assertEquals(1, reloads.get());
+    }
+
+    @Test
+    @DisplayName("Should not reload entry that is far from expiry")
+    void givenFreshRemoteEntry_whenHit_thenDoesNotReload() throws Exception {
+        // Given
+        var cache = createCache(TimeUnit.MINUTES.toMillis(10));
+        cache.put("KEY", "VALUE");
+        cache.resolveRemoteExpiresAt("KEY");
+        var reloads = new AtomicInteger();
+
+        // When
+        when(cacheManager.getCache(CACHE_NAME)).thenReturn(cache);
+
+        createRefreshAhead().onHit(CACHE_NAME, "KEY", reloads::incrementAndGet);
+        awaitTasks();
+
+        // Then
+        assertEquals(0, reloads.get());
+    }
+
+    @Test
+    @DisplayName("Should only resolve remote expiry on the first hit")
+    void givenUnknownExpiry_whenHit_thenResolvesExpiryWithoutReload() throws Exception {
+        // Given
+        var cache = createCache(1);
+        cache.put("KEY", "VALUE");
+        var reloads = new AtomicInteger();
+
+        // When
+        when(cacheManager.getCache(CACHE_NAME)).thenReturn(cache);
+
+        createRefreshAhead().onHit(CACHE_NAME, "KEY", reloads::incrementAndGet);
+        awaitTasks();
+
+        // Then
+        assertEquals(0, reloads.get());
+        assertNotEquals(TwoLevelCache.UNKNOWN_EXPIRY, cache.getRemoteExpiresAt("KEY"));
+    }
+
+    private TwoLevelCache createCache(long remoteTimeToLive) {
+        return new TwoLevelCache(remote, Caffeine.newBuilder().build(), invalidationPublisher,
+                key -> remoteTimeToLive);
+    }
+
+    private RefreshAhead createRefreshAhead() {
+        return new RefreshAhead(cacheManager, new SimpleMeterRegistry(), true, 60, executor);
+    }
+
+    private void awaitTasks() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,94 @@
+package com.arsiwooqq.userservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    private Counter coalesced;
+    private SingleFlight<String, String> singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        coalesced = new SimpleMeterRegistry().counter("coalesced");
+        singleFlight = new SingleFlight<>(coalesced);
+    }
+
+    @Test
+    @DisplayName("Should run loader once and share its result with concurrent callers")
+    void givenConcurrentCallers_whenExecute_thenLoaderRunsOnce() throws Exception {
+        // Given
+        var loads = new AtomicInteger();
+        var release = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(4);
+
+        // When
+        var leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("KEY", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "VALUE";
+        }), executor);
+        while (loads.get() == 0) {
+            Thread.onSpinWait();
+        }
+        var followers = new CompletableFuture<?>[3];
+        for (int i = 0; i < followers.length; i++) {
+            followers[i] = CompletableFuture.supplyAsync(() -> singleFlight.execute("KEY", () -> {
+                loads.incrementAndGet();
+                return "OTHER";
+            }), executor);
+        }
+        while (coalesced.count() < followers.length) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // Then
+        assertEquals("VALUE", leader.get(5, TimeUnit.SECONDS));
+        for (var follower : followers) {
+            assertEquals("VALUE", follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should run loader again once the previous call has completed")
+    void givenCompletedCall_whenExecuteAgain_thenRunsLoaderAgain() {
+        // When
+        var first = singleFlight.execute("KEY", () -> "FIRST");
+        var second = singleFlight.execute("KEY", () -> "SECOND");
+
+        // Then
+        assertEquals("FIRST", first);
+        assertEquals("SECOND", second);
+        assertEquals(0, coalesced.count());
+    }
+
+    @Test
+    @DisplayName("Should propagate loader exception to the caller")
+    void givenFailingLoader_whenExecute_thenThrowsLoaderException() {
+        // Given, When, Then
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("KEY", () -> {
+            throw new IllegalStateException("FAILED");
+        }));
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
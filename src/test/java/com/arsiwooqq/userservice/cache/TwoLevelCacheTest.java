@@ -0,0 +1,122 @@
+package com.arsiwooqq.userservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TwoLevelCacheTest {
+    private static final String CACHE_NAME = "TEST_CACHE";
+    private static final long REMOTE_TIME_TO_LIVE = 60_000;
+
+    @Mock
+    private Cache remote;
+
+    @Mock
+    private CacheInvalidationPublisher invalidationPublisher;
+
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TwoLevelCache(remote, Caffeine.newBuilder().maximumSize(10).build(), invalidationPublisher,
+                key -> REMOTE_TIME_TO_LIVE);
+    }
+
+    @Test
+    @DisplayName("Should serve value from local cache after the first remote hit")
+    void givenRemoteHit_whenGetTwice_thenRemoteQueriedOnce() {
+        // Given
+        when(remote.get("KEY")).thenReturn(new SimpleValueWrapper("VALUE"));
+
+        // When
+        var first = cache.get("KEY", String.class);
+        var second = cache.get("KEY", String.class);
+
+        // Then
+        assertEquals("VALUE", first);
+        assertEquals("VALUE", second);
+        verify(remote, times(1)).get("KEY");
+    }
+
+    @Test
+    @DisplayName("Should return null when value is in neither local nor remote cache")
+    void givenNoValue_whenGet_thenReturnsNull() {
+        // When
+        when(remote.get("KEY")).thenReturn(null);
+
+        // Then
+        assertNull(cache.get("KEY", String.class));
+    }
+
+    @Test
+    @DisplayName("Should write value to both levels on put")
+    void givenValue_whenPut_thenWritesBothLevels() {
+        // When
+        cache.put("KEY", "VALUE");
+
+        // Then
+        verify(remote, times(1)).put("KEY", "VALUE");
+        assertEquals("VALUE", cache.get("KEY", String.class));
+        verify(remote, never()).get(any());
+    }
+
+    @Test
+    @DisplayName("Should evict both levels and publish invalidation on evict")
+    void givenCachedValue_whenEvict_thenEvictsBothLevelsAndPublishes() {
+        // Given
+        cache.put("KEY", "VALUE");
+        when(remote.getName()).thenReturn(CACHE_NAME);
+
+        // When
+        cache.evict("KEY");
+
+        // Then
+        verify(remote, times(1)).evict("KEY");
+        verify(invalidationPublisher, times(1)).publishEvict(CACHE_NAME, "KEY");
+        assertNull(cache.get("KEY", String.class));
+    }
+
+    @Test
+    @DisplayName("Should drop only local entry on local eviction")
+    void givenCachedValue_whenEvictLocal_thenRemoteUntouched() {
+        // Given
+        cache.put("KEY", "VALUE");
+
+        // When
+        cache.evictLocal("KEY");
+        cache.get("KEY");
+
+        // Then
+        verify(remote, never()).evict(any());
+        verify(remote, times(1)).get("KEY");
+        verify(invalidationPublisher, never()).publishEvict(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should report unknown remote expiry until it is resolved")
+    void givenCachedValue_whenResolveRemoteExpiry_thenRemembersExpiry() {
+        // Given
+        cache.put("KEY", "VALUE");
+
+        // When
+        var before = cache.getRemoteExpiresAt("KEY");
+        var resolved = cache.resolveRemoteExpiresAt("KEY");
+
+        // Then
+        assertEquals(TwoLevelCache.UNKNOWN_EXPIRY, before);
+        assertTrue(resolved > System.currentTimeMillis());
+        assertEquals(resolved, cache.getRemoteExpiresAt("KEY"));
+    }
+}
@@ -0,0 +1,148 @@
+package com.arsiwooqq.userservice.cache;
+
+import com.arsiwooqq.userservice.controller.AbstractIntegrationTest;
+import com.arsiwooqq.userservice.dto.UserResponse;
+import com.arsiwooqq.userservice.service.impl.CardServiceImpl;
+import com.arsiwooqq.userservice.service.impl.UserServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VersionedCacheWriterTest extends AbstractIntegrationTest {
+    @Autowired
+    private VersionedCacheWriter versionedCacheWriter;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Test
+    @DisplayName("Should reject value older than the cached one")
+    void givenNewerCachedValue_whenPutOlder_thenKeepsNewer() {
+        // Given
+        var userId = UUID.randomUUID().toString();
+        var newer = createUserResponse(userId, "NEW@EMAIL");
+        var older = createUserResponse(userId, "OLD@EMAIL");
+
+        // When
+        var newerWritten = versionedCacheWriter.put(UserServiceImpl.USER_CACHE, userId, newer, 2);
+        var olderWritten = versionedCacheWriter.put(UserServiceImpl.USER_CACHE, userId, older, 1);
+
+        // Then
+        assertTrue(newerWritten);
+        assertFalse(olderWritten);
+        assertEquals(newer, getCached(userId));
+    }
+
+    @Test
+    @DisplayName("Should accept value of the same version")
+    void givenCachedValue_whenPutSameVersion_thenWrites() {
+        // Given
+        var userId = UUID.randomUUID().toString();
+        var value = createUserResponse(userId, "TEST@EMAIL");
+        versionedCacheWriter.put(UserServiceImpl.USER_CACHE, userId, value, 1);
+
+        // When, Then
+        assertTrue(versionedCacheWriter.put(UserServiceImpl.USER_CACHE, userId, value, 1));
+    }
+
+    @Test
+    @DisplayName("Should reject any value after tombstone")
+    void givenTombstone_whenPut_thenRejects() {
+        // Given
+        var userId = UUID.randomUUID().toString();
+        versionedCacheWriter.tombstone(UserServiceImpl.USER_CACHE, userId);
+
+        // When
+        var written = versionedCacheWriter.put(UserServiceImpl.USER_CACHE, userId,
+                createUserResponse(userId, "TEST@EMAIL"), 100);
+
+        // Then
+        assertFalse(written);
+        assertNull(getCached(userId));
+    }
+
+    @Test
+    @DisplayName("Should reject value of the evicted version after eviction at a newer version")
+    void givenEvictionAtNewerVersion_whenPutOldVersion_thenRejects() {
+        // Given
+        var userId = UUID.randomUUID().toString();
+        var older = createUserResponse(userId, "OLD@EMAIL");
+        var newer = createUserResponse(userId, "NEW@EMAIL");
+        versionedCacheWriter.put(UserServiceImpl.USER_CACHE, userId, older, 1);
+
+        // When
+        cacheInvalidator.evict(List.of(new CacheKey(UserServiceImpl.USER_CACHE, userId)), 2);
+        var olderWritten = versionedCacheWriter.put(UserServiceImpl.USER_CACHE, userId, older, 1);
+        var newerWritten = versionedCacheWriter.put(UserServiceImpl.USER_CACHE, userId, newer, 2);
+
+        // Then
+        assertFalse(olderWritten);
+        assertTrue(newerWritten);
+        assertEquals(newer, getCached(userId));
+    }
+
+    @Test
+    @DisplayName("Should keep tombstone when evicting at a lower version")
+    void givenTombstone_whenEvictAtVersion_thenStillRejects() {
+        // Given
+        var userId = UUID.randomUUID().toString();
+        versionedCacheWriter.tombstone(UserServiceImpl.USER_CACHE, userId);
+
+        // When
+        cacheInvalidator.evict(List.of(new CacheKey(UserServiceImpl.USER_CACHE, userId)), 5);
+
+        // Then
+        assertFalse(versionedCacheWriter.put(UserServiceImpl.USER_CACHE, userId,
+                createUserResponse(userId, "TEST@EMAIL"), 5));
+    }
+
+    @Test
+    @DisplayName("Should not fail user delete when tombstone cannot be written")
+    void givenRedisDown_whenTombstoneUser_thenDoesNotThrow() {
+        // Given
+        var writer = writerWithRedisDown();
+
+        // When, Then
+        assertDoesNotThrow(() -> writer.tombstone(UserServiceImpl.USER_CACHE, UUID.randomUUID().toString()));
+    }
+
+    @Test
+    @DisplayName("Should not fail card delete when tombstone cannot be written")
+    void givenRedisDown_whenTombstoneCard_thenDoesNotThrow() {
+        // Given
+        var writer = writerWithRedisDown();
+
+        // When, Then
+        assertDoesNotThrow(() -> writer.tombstone(CardServiceImpl.CARD_CACHE, UUID.randomUUID().toString()));
+    }
+
+    private VersionedCacheWriter writerWithRedisDown() {
+        var redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("DOWN"));
+        return new VersionedCacheWriter(cacheManager, redisTemplate, 60);
+    }
+
+    private UserResponse getCached(String userId) {
+        var cache = cacheManager.getCache(UserServiceImpl.USER_CACHE);
+        assertNotNull(cache);
+        return cache.get(userId, UserResponse.class);
+    }
+
+    private UserResponse createUserResponse(String userId, String email) {
+        return new UserResponse(userId, "TEST_NAME", "TEST_SURNAME", LocalDate.now().minusYears(20), email, List.of());
+    }
+}
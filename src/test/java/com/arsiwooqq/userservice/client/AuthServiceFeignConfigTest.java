@@ -0,0 +1,119 @@
+package com.arsiwooqq.userservice.client;
+
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Request;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuthServiceFeignConfigTest {
+    private final AuthServiceFeignConfig config = new AuthServiceFeignConfig();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HttpServer authService;
+
+    @BeforeEach
+    void startAuthService() throws IOException {
+        authService = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        authService.createContext("/api/v1/auth/validate", exchange -> {
+            var body = "{\"success\":true,\"data\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        authService.start();
+    }
+
+    @AfterEach
+    void stopAuthService() {
+        authService.stop(0);
+    }
+
+    @Test
+    @DisplayName("Should reuse pooled connection for consecutive calls")
+    void givenConsecutiveCalls_whenExecute_thenConnectsOnce() throws IOException {
+        // Given
+        var connectionManager = config.authServiceConnectionManager(meterRegistry, 10,
+                Duration.ofMinutes(5), Duration.ofSeconds(2), 250);
+        var httpClient = config.authServiceHttpClient(connectionManager, Duration.ofSeconds(30), Duration.ofSeconds(30));
+        var client = config.feignClient(httpClient);
+        var url = "http://localhost:" + authService.getAddress().getPort() + "/api/v1/auth/validate";
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            var request = Request.create(Request.HttpMethod.POST, url, Map.of(),
+                    "{}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, null);
+            try (var response = client.execute(request, new Request.Options())) {
+                assertEquals(200, response.status());
+                response.body().asInputStream().readAllBytes();
+            }
+        }
+        httpClient.close();
+
+        // Then
+        assertEquals(3, meterRegistry.get("httpcomponents.httpclient.pool.leases").counter().count());
+        assertEquals(1, meterRegistry.get("httpcomponents.httpclient.connect").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should keep connection no longer than auth service allows")
+    void givenShorterServerTimeout_whenKeepAlive_thenUsesServerTimeout() {
+        // Given
+        var strategy = AuthServiceFeignConfig.keepAliveStrategy(Duration.ofSeconds(30));
+        var response = new BasicClassicHttpResponse(200);
+        response.addHeader("Keep-Alive", "timeout=5, max=100");
+
+        // When, Then
+        assertEquals(5000, strategy.getKeepAliveDuration(response, null).toMilliseconds());
+    }
+
+    @Test
+    @DisplayName("Should cap server keep-alive timeout with configured duration")
+    void givenLongerServerTimeout_whenKeepAlive_thenUsesConfiguredDuration() {
+        // Given
+        var strategy = AuthServiceFeignConfig.keepAliveStrategy(Duration.ofSeconds(30));
+        var response = new BasicClassicHttpResponse(200);
+        response.addHeader("Keep-Alive", "timeout=120");
+
+        // When, Then
+        assertEquals(30000, strategy.getKeepAliveDuration(response, null).toMilliseconds());
+    }
+
+    @Test
+    @DisplayName("Should use configured duration when auth service sends no keep-alive timeout")
+    void givenNoServerTimeout_whenKeepAlive_thenUsesConfiguredDuration() {
+        // Given
+        var strategy = AuthServiceFeignConfig.keepAliveStrategy(Duration.ofSeconds(30));
+
+        // When, Then
+        assertEquals(30000, strategy.getKeepAliveDuration(new BasicClassicHttpResponse(200), null).toMilliseconds());
+    }
+
+    @Test
+    @DisplayName("Should leave Feign default client in place when pooled transport is disabled")
+    void givenPoolDisabled_whenCreateContext_thenRegistersNoClient() {
+        // Given
+        var contextRunner = new ApplicationContextRunner()
+                .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .withUserConfiguration(AuthServiceFeignConfig.class)
+                .withPropertyValues("app.auth-service.pool.enabled=false");
+
+        // When, Then
+        contextRunner.run(context -> assertTrue(context.getBeansOfType(Client.class).isEmpty()));
+    }
+}
@@ -1,10 +1,12 @@
 package com.arsiwooqq.userservice.controller;
 
+import com.arsiwooqq.userservice.cache.VersionedCacheWriter;
 import com.arsiwooqq.userservice.dto.CardCreateRequest;
 import com.arsiwooqq.userservice.entity.Card;
 import com.arsiwooqq.userservice.entity.User;
 import com.arsiwooqq.userservice.repository.CardRepository;
 import com.arsiwooqq.userservice.repository.UserRepository;
+import com.arsiwooqq.userservice.service.impl.CardServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -39,6 +41,9 @@ class CardControllerTest extends AbstractIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private VersionedCacheWriter versionedCacheWriter;
+
     @BeforeEach
     void clearCardRepository() {
         cardRepository.deleteAll();
@@ -77,7 +82,7 @@ class CardControllerTest extends AbstractIntegrationTest {
 
             var card = cardRepository.findAll().get(0);
             assertNotNull(card);
-            assertEquals(request.userId(), card.getUser().getUserId());
+            assertEquals(request.userId(), cardRepository.findOwnerUserIdById(card.getId()).orElseThrow());
             assertEquals(request.number(), card.getNumber());
             assertEquals(request.holder(), card.getHolder());
         }
@@ -271,6 +276,34 @@ class CardControllerTest extends AbstractIntegrationTest {
             assertFalse(cardRepository.existsById(id));
         }
 
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should not cache card loaded by a reader before it was deleted")
+        void givenCardLoadedBeforeDelete_whenReaderCachesIt_thenCardStaysDeleted() throws Exception {
+            // Given
+            var newUser = createTestUser();
+            userRepository.save(newUser);
+            var id = cardRepository.save(new Card(
+                    null,
+                    newUser,
+                    "TEST_NUMBER",
+                    "TEST_HOLDER",
+                    LocalDate.now().plusDays(1)
+            )).getId();
+            var loadedBeforeDelete = cardRepository.findResponseById(id).orElseThrow();
+
+            // When
+            mockMvc.perform(delete("/api/v1/cards/{id}", id))
+                    .andExpect(status().isOk());
+            var cached = versionedCacheWriter.put(CardServiceImpl.CARD_CACHE, id.toString(), loadedBeforeDelete,
+                    CardServiceImpl.CARD_VERSION);
+
+            // Then
+            assertFalse(cached);
+            mockMvc.perform(get("/api/v1/cards/{id}", id))
+                    .andExpect(status().isNotFound());
+        }
+
         @Test
         @WithMockUser(roles = "ADMIN")
         @DisplayName("Should return not found when deleting not existing card")
@@ -0,0 +1,271 @@
+package com.arsiwooqq.userservice.controller;
+
+import com.arsiwooqq.userservice.entity.Card;
+import com.arsiwooqq.userservice.entity.User;
+import com.arsiwooqq.userservice.repository.CardRepository;
+import com.arsiwooqq.userservice.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Testcontainers
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@AutoConfigureMockMvc(addFilters = false)
+class StatementCountTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+        for (int i = 1; i <= 3; i++) {
+            var user = userRepository.save(createUser(i));
+            cardRepository.save(createCard(user, i));
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Nested
+    @DisplayName("Get page")
+    class GetAllPagedTests {
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should read page of users with total in two statements of one transaction")
+        void givenUsers_whenGetAllUsers_thenRunsTwoStatementsInOneTransaction() throws Exception {
+            // When
+            mockMvc.perform(get("/api/v1/users?page=0&size=2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.totalElements", is(3)))
+                    .andExpect(jsonPath("$.data.content", hasSize(2)));
+
+            // Then
+            assertEquals(2, statistics.getPrepareStatementCount());
+            assertEquals(1, statistics.getTransactionCount());
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should read page of cards with total in two statements of one transaction")
+        void givenCards_whenGetAllCards_thenRunsTwoStatementsInOneTransaction() throws Exception {
+            // When
+            mockMvc.perform(get("/api/v1/cards?page=0&size=2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.totalElements", is(3)))
+                    .andExpect(jsonPath("$.data.content", hasSize(2)));
+
+            // Then
+            assertEquals(2, statistics.getPrepareStatementCount());
+            assertEquals(1, statistics.getTransactionCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Get user")
+    class GetUserTests {
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should read user with cards in one statement on cache miss and none on hit")
+        void givenUser_whenGetById_thenRunsOneStatementOnMiss() throws Exception {
+            // Given
+            var user = userRepository.findAll().get(0);
+            statistics.clear();
+
+            // When
+            mockMvc.perform(get("/api/v1/users/{id}", user.getUserId())))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.cards", hasSize(1)));
+            var onMiss = statistics.getPrepareStatementCount();
+
+            mockMvc.perform(get("/api/v1/users/{id}", user.getUserId())))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.cards", hasSize(1)));
+
+            // Then
+            assertEquals(1, onMiss);
+            assertEquals(1, statistics.getPrepareStatementCount());
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should read user with cards by email in one statement on cache miss")
+        void givenUser_whenGetByEmail_thenRunsOneStatementOnMiss() throws Exception {
+            // Given
+            var user = userRepository.findAll().get(0);
+            statistics.clear();
+
+            // When
+            mockMvc.perform(get("/api/v1/users/search").param("email", user.getEmail())))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.cards", hasSize(1)));
+
+            // Then
+            assertEquals(1, statistics.getPrepareStatementCount());
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should read user profile without joining cards")
+        void givenUser_whenGetProfileById_thenReadsUserOnly() throws Exception {
+            // Given
+            var user = userRepository.findAll().get(0);
+            statistics.clear();
+
+            // When
+            mockMvc.perform(get("/api/v1/users/{id}", user.getUserId()).param("view", "PROFILE"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.userId", is(user.getUserId())))
+                    .andExpect(jsonPath("$.data.cards").doesNotExist());
+
+            // Then
+            assertEquals(1, statistics.getPrepareStatementCount());
+            assertEquals(0, statistics.getCollectionLoadCount());
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should read first page of user cards in one statement")
+        void givenUserWithCards_whenGetCards_thenRunsOneStatement() throws Exception {
+            // Given
+            var user = userRepository.findAll().get(0);
+            statistics.clear();
+
+            // When
+            mockMvc.perform(get("/api/v1/users/{id}/cards", user.getUserId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.totalElements", is(1)))
+                    .andExpect(jsonPath("$.data.content[0].userId", is(user.getUserId())));
+
+            // Then
+            assertEquals(1, statistics.getPrepareStatementCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Get card")
+    class GetCardTests {
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should read card with its owner id in one statement")
+        void givenCard_whenGetById_thenRunsOneStatement() throws Exception {
+            // Given
+            var card = cardRepository.findAll().get(0);
+            statistics.clear();
+
+            // When
+            mockMvc.perform(get("/api/v1/cards/{id}", card.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.userId").exists());
+
+            // Then
+            assertEquals(1, statistics.getPrepareStatementCount());
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should read slice of cards with owner ids in two statements")
+        void givenCards_whenGetAllByCursor_thenRunsTwoStatements() throws Exception {
+            // When
+            mockMvc.perform(get("/api/v1/cards").param("cursor", "").param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.content", hasSize(2)));
+
+            // Then
+            assertEquals(2, statistics.getPrepareStatementCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Card fetch plan")
+    class CardFetchPlanTests {
+        @Test
+        @DisplayName("Should not load owner when loading card without fetch plan")
+        void givenCard_whenFindById_thenLeavesOwnerUnloaded() {
+            // Given
+            var id = cardRepository.findAll().get(0).getId();
+            statistics.clear();
+
+            // When
+            var owner = readOnlyTransactionTemplate.execute(status ->
+                    cardRepository.findById(id).orElseThrow().getUser());
+
+            // Then
+            assertFalse(Hibernate.isInitialized(owner));
+            assertEquals(1, statistics.getPrepareStatementCount());
+        }
+
+        @Test
+        @DisplayName("Should join owner when loading card through findCardById")
+        void givenCard_whenFindCardById_thenJoinsOwner() {
+            // Given
+            var id = cardRepository.findAll().get(0).getId();
+            statistics.clear();
+
+            // When
+            var userId = readOnlyTransactionTemplate.execute(status ->
+                    cardRepository.findCardById(id).orElseThrow().getUser().getUserId());
+
+            // Then
+            assertNotNull(userId);
+            assertEquals(1, statistics.getPrepareStatementCount());
+        }
+    }
+
+    private User createUser(int i) {
+        var user = new User();
+        user.setUserId(UUID.randomUUID().toString());
+        user.setName("TEST_NAME_" + i);
+        user.setSurname("TEST_SURNAME_" + i);
+        user.setBirthDate(LocalDate.now().minusDays(1));
+        user.setEmail("TEST_" + i + "@EMAIL");
+        return user;
+    }
+
+    private Card createCard(User user, int i) {
+        var card = new Card();
+        card.setUser(user);
+        card.setNumber("TEST_NUMBER_" + i);
+        card.setHolder("TEST_HOLDER");
+        card.setExpirationDate(LocalDate.now().plusDays(1));
+        return card;
+    }
+}
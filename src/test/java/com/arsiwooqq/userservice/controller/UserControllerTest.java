@@ -2,7 +2,9 @@ package com.arsiwooqq.userservice.controller;
 
 import com.arsiwooqq.userservice.dto.UserCreateRequest;
 import com.arsiwooqq.userservice.dto.UserUpdateRequest;
+import com.arsiwooqq.userservice.entity.Card;
 import com.arsiwooqq.userservice.entity.User;
+import com.arsiwooqq.userservice.repository.CardRepository;
 import com.arsiwooqq.userservice.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -17,6 +19,7 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.time.LocalDate;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -37,6 +40,9 @@ class UserControllerTest extends AbstractIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CardRepository cardRepository;
+
     @BeforeEach
     void clearUserRepository() {
         userRepository.deleteAll();
@@ -223,6 +229,80 @@ class UserControllerTest extends AbstractIntegrationTest {
                     .andExpect(jsonPath("$.success", is(false)))
                     .andExpect(jsonPath("$.data").doesNotExist());
         }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should return cards by default and leave them out of profile view")
+        void givenUserWithCard_whenGetById_thenReturnsCardsUnlessProfileRequested() throws Exception {
+            // Given
+            var user = userRepository.save(createTestUser());
+            cardRepository.save(createTestCard(user, "TEST_NUMBER"));
+
+            // When, Then
+            mockMvc.perform(get("/api/v1/users/{id}", user.getUserId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.cards", hasSize(1)))
+                    .andExpect(jsonPath("$.data.cards[0].number", is("TEST_NUMBER")));
+
+            mockMvc.perform(get("/api/v1/users/{id}", user.getUserId())
+                            .param("view", "PROFILE"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.userId", is(user.getUserId())))
+                    .andExpect(jsonPath("$.data.cards").doesNotExist());
+        }
+    }
+
+    @Nested
+    @DisplayName("Get cards of user")
+    class GetCardsTests {
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should return page of user cards")
+        void givenUserWithCards_whenGetCards_thenReturnsPage() throws Exception {
+            // Given
+            var user = userRepository.save(createTestUser());
+            var other = userRepository.save(createUniqueUser(1));
+            for (int i = 0; i < 3; i++) {
+                cardRepository.save(createTestCard(user, "TEST_NUMBER" + i));
+            }
+            cardRepository.save(createTestCard(other, "OTHER_NUMBER"));
+
+            // When, Then
+            mockMvc.perform(get("/api/v1/users/{id}/cards", user.getUserId())
+                            .param("page", "0")
+                            .param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.success", is(true)))
+                    .andExpect(jsonPath("$.data.totalElements", is(3)))
+                    .andExpect(jsonPath("$.data.content", hasSize(2)))
+                    .andExpect(jsonPath("$.data.content[0].userId", is(user.getUserId())))
+                    .andExpect(jsonPath("$.data.content[1].userId", is(user.getUserId())));
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should return empty page when user has no cards")
+        void givenUserWithoutCards_whenGetCards_thenReturnsEmptyPage() throws Exception {
+            // Given
+            var user = userRepository.save(createTestUser());
+
+            // When, Then
+            mockMvc.perform(get("/api/v1/users/{id}/cards", user.getUserId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.totalElements", is(0)))
+                    .andExpect(jsonPath("$.data.content", hasSize(0)));
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should return not found when getting cards of non-existing user")
+        void givenNotExistingUser_whenGetCards_thenReturnsNotFound() throws Exception {
+            // When, Then
+            mockMvc.perform(get("/api/v1/users/{id}/cards", UUID.randomUUID()))
+                    .andExpect(status().isNotFound())
+                    .andExpect(jsonPath("$.success", is(false)))
+                    .andExpect(jsonPath("$.data").doesNotExist());
+        }
     }
 
     @Nested
@@ -313,6 +393,80 @@ class UserControllerTest extends AbstractIntegrationTest {
                     .andExpect(jsonPath("$.data.totalPages", is(3)))
                     .andExpect(jsonPath("$.data.content", hasSize(2)));
         }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should return page without totals when count is NONE")
+        void givenCountNone_whenGetAllUsers_thenReturnsSliceWithoutTotals() throws Exception {
+            // Given
+            for (int i = 1; i <= 3; i++) {
+                userRepository.save(createUniqueUser(i));
+            }
+
+            // When, Then
+            mockMvc.perform(get("/api/v1/users?page=0&size=2&count=NONE"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.success", is(true)))
+                    .andExpect(jsonPath("$.data.totalElements").doesNotExist())
+                    .andExpect(jsonPath("$.data.last", is(false)))
+                    .andExpect(jsonPath("$.data.content", hasSize(2)));
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should return page with total when count is ESTIMATED")
+        void givenCountEstimated_whenGetAllUsers_thenReturnsPageWithTotal() throws Exception {
+            // Given
+            for (int i = 1; i <= 3; i++) {
+                userRepository.save(createUniqueUser(i));
+            }
+
+            // When, Then
+            mockMvc.perform(get("/api/v1/users?page=0&size=2&count=ESTIMATED"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.success", is(true)))
+                    .andExpect(jsonPath("$.data.totalElements", is(3)))
+                    .andExpect(jsonPath("$.data.content", hasSize(2)));
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should walk all users slice by slice when following next cursor")
+        void givenMoreUsersThanSliceSize_whenGetAllByCursor_thenReturnsEveryUserOnce() throws Exception {
+            // Given
+            for (int i = 1; i <= 5; i++) {
+                userRepository.save(createUniqueUser(i));
+            }
+
+            // When
+            var userIds = new HashSet<String>();
+            var cursor = "";
+            var slices = 0;
+            do {
+                var body = mockMvc.perform(get("/api/v1/users").param("cursor", cursor).param("size", "2"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.success", is(true)))
+                        .andReturn().getResponse().getContentAsString();
+                var data = objectMapper.readTree(body).get("data");
+                data.get("content").forEach(user -> userIds.add(user.get("userId").asText()));
+                cursor = data.hasNonNull("nextCursor") ? data.get("nextCursor").asText() : null;
+                slices++;
+            } while (cursor != null);
+
+            // Then
+            assertEquals(5, userIds.size());
+            assertEquals(3, slices);
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Should return bad request when cursor is malformed")
+        void givenMalformedCursor_whenGetAllByCursor_thenReturnsBadRequest() throws Exception {
+            // When, Then
+            mockMvc.perform(get("/api/v1/users").param("cursor", "NOT_A_CURSOR"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.success", is(false)));
+        }
     }
 
     @Nested
@@ -497,4 +651,13 @@ class UserControllerTest extends AbstractIntegrationTest {
         user.setUserId(UUID.randomUUID().toString());
         return user;
     }
-}
\ No newline at end of file
+
+    private Card createTestCard(User user, String number) {
+        var card = new Card();
+        card.setUser(user);
+        card.setNumber(number);
+        card.setHolder("TEST_HOLDER");
+        card.setExpirationDate(LocalDate.now().plusDays(1));
+        return card;
+    }
+}
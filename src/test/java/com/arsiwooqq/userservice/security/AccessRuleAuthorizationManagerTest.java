@@ -0,0 +1,209 @@
+package com.arsiwooqq.userservice.security;
+
+import com.arsiwooqq.userservice.controller.CardController;
+import com.arsiwooqq.userservice.controller.UserController;
+import com.arsiwooqq.userservice.dto.PageCount;
+import com.arsiwooqq.userservice.dto.UserCreateRequest;
+import com.arsiwooqq.userservice.dto.UserView;
+import com.arsiwooqq.userservice.exception.AccessDeniedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccessRuleAuthorizationManagerTest {
+    private static final String USER_ID = UUID.randomUUID().toString();
+
+    @Mock
+    private ObjectProvider<SecurityService> securityServiceProvider;
+
+    @Mock
+    private SecurityService securityService;
+
+    private AccessRuleAuthorizationManager authorizationManager;
+
+    @BeforeEach
+    void setUp() {
+        authorizationManager = new AccessRuleAuthorizationManager(securityServiceProvider);
+    }
+
+    @Nested
+    @DisplayName("Admin rule tests")
+    class AdminRuleTests {
+        @Test
+        @DisplayName("Should grant admin")
+        void givenAdmin_whenAuthorize_thenGranted() throws NoSuchMethodException {
+            // Given
+            var invocation = invocation(UserController.class.getMethod("getUsers", Pageable.class, PageCount.class),
+                    Pageable.unpaged(), PageCount.EXACT);
+
+            // When
+            var result = authorizationManager.authorize(() -> admin(), invocation);
+
+            // Then
+            assertTrue(result.isGranted());
+        }
+
+        @Test
+        @DisplayName("Should deny user")
+        void givenUser_whenAuthorize_thenDenied() throws NoSuchMethodException {
+            // Given
+            var invocation = invocation(UserController.class.getMethod("getUsers", Pageable.class, PageCount.class),
+                    Pageable.unpaged(), PageCount.EXACT);
+
+            // When
+            var result = authorizationManager.authorize(() -> user(), invocation);
+
+            // Then
+            assertFalse(result.isGranted());
+        }
+    }
+
+    @Nested
+    @DisplayName("Admin or self rule tests")
+    class AdminOrSelfRuleTests {
+        @Test
+        @DisplayName("Should grant user accessing own data")
+        void givenOwnUserId_whenAuthorize_thenGranted() throws NoSuchMethodException {
+            // Given
+            var invocation = invocation(UserController.class.getMethod("getById", String.class, UserView.class),
+                    USER_ID, UserView.FULL);
+
+            // When
+            var result = authorizationManager.authorize(() -> user(), invocation);
+
+            // Then
+            assertTrue(result.isGranted());
+        }
+
+        @Test
+        @DisplayName("Should deny user accessing data of another user")
+        void givenOtherUserId_whenAuthorize_thenDenied() throws NoSuchMethodException {
+            // Given
+            var invocation = invocation(UserController.class.getMethod("getById", String.class, UserView.class),
+                    UUID.randomUUID().toString(), UserView.FULL);
+
+            // When
+            var result = authorizationManager.authorize(() -> user(), invocation);
+
+            // Then
+            assertFalse(result.isGranted());
+        }
+
+        @Test
+        @DisplayName("Should deny missing authentication")
+        void givenNoAuthentication_whenAuthorize_thenDenied() throws NoSuchMethodException {
+            // Given
+            var invocation = invocation(UserController.class.getMethod("getById", String.class, UserView.class),
+                    USER_ID, UserView.FULL);
+
+            // When
+            var result = authorizationManager.authorize(() -> null, invocation);
+
+            // Then
+            assertFalse(result.isGranted());
+        }
+
+        @Test
+        @DisplayName("Should deny authentication without name")
+        void givenAuthenticationWithoutName_whenAuthorize_thenDenied() throws NoSuchMethodException {
+            // Given
+            var invocation = invocation(UserController.class.getMethod("getById", String.class, UserView.class),
+                    USER_ID, UserView.FULL);
+            var withoutSubject = new JwtAuthentication(new JwtPrincipal(null, "ROLE_USER", null));
+
+            // When
+            var result = authorizationManager.authorize(() -> withoutSubject, invocation);
+
+            // Then
+            assertFalse(result.isGranted());
+        }
+    }
+
+    @Nested
+    @DisplayName("Security service rule tests")
+    class SecurityServiceRuleTests {
+        @Test
+        @DisplayName("Should check card ownership with security service")
+        void givenCardOwner_whenAuthorize_thenDelegatesToSecurityService() throws NoSuchMethodException {
+            // Given
+            var cardId = UUID.randomUUID();
+            var invocation = invocation(CardController.class.getMethod("getById", UUID.class), cardId);
+            when(securityServiceProvider.getObject()).thenReturn(securityService);
+            when(securityService.canAccessCard(USER_ID, cardId)).thenReturn(true);
+
+            // When
+            var result = authorizationManager.authorize(() -> user(), invocation);
+
+            // Then
+            assertTrue(result.isGranted());
+            verify(securityService).canAccessCard(USER_ID, cardId);
+        }
+
+        @Test
+        @DisplayName("Should propagate security service denial")
+        void givenOtherUserCreateRequest_whenAuthorize_thenThrowsAccessDenied() throws NoSuchMethodException {
+            // Given
+            var request = new UserCreateRequest(UUID.randomUUID().toString(), "TEST_NAME", "TEST_SURNAME",
+                    LocalDate.now().minusYears(20), "TEST@EMAIL");
+            var invocation = invocation(UserController.class.getMethod("create", UserCreateRequest.class), request);
+            when(securityServiceProvider.getObject()).thenReturn(securityService);
+            when(securityService.canCreateUser(USER_ID, request)).thenThrow(new AccessDeniedException("DENIED"));
+
+            // When, Then
+            assertThrows(AccessDeniedException.class, () -> authorizationManager.authorize(() -> user(), invocation));
+        }
+
+        @Test
+        @DisplayName("Should not call security service for admin")
+        void givenAdmin_whenAuthorize_thenSkipsSecurityService() throws NoSuchMethodException {
+            // Given
+            var invocation = invocation(CardController.class.getMethod("delete", UUID.class), UUID.randomUUID());
+
+            // When
+            var result = authorizationManager.authorize(() -> admin(), invocation);
+
+            // Then
+            assertTrue(result.isGranted());
+            verifyNoInteractions(securityServiceProvider);
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject method without rule")
+    void givenMethodWithoutRule_whenAuthorize_thenThrowsException() throws NoSuchMethodException {
+        // Given
+        var invocation = invocation(Object.class.getMethod("toString"));
+
+        // When, Then
+        assertThrows(IllegalStateException.class, () -> authorizationManager.authorize(() -> user(), invocation));
+    }
+
+    private SimpleMethodInvocation invocation(Method method, Object... arguments) {
+        return new SimpleMethodInvocation(null, method, arguments);
+    }
+
+    private Authentication user() {
+        return new TestingAuthenticationToken(USER_ID, null, "ROLE_USER");
+    }
+
+    private Authentication admin() {
+        return new TestingAuthenticationToken(UUID.randomUUID().toString(), null, "ROLE_ADMIN");
+    }
+}
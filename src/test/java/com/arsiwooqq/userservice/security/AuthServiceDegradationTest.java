@@ -0,0 +1,109 @@
+package com.arsiwooqq.userservice.security;
+
+import com.arsiwooqq.userservice.config.AuthServiceClientConfig;
+import com.arsiwooqq.userservice.controller.AbstractIntegrationTest;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    Runs against a local stub of the auth service that answers slower than the Feign read timeout
+ */
+class AuthServiceDegradationTest extends AbstractIntegrationTest {
+    private static final AtomicInteger stubCalls = new AtomicInteger();
+    private static final HttpServer authService = startAuthServiceStub();
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @DynamicPropertySource
+    static void configureAuthService(DynamicPropertyRegistry registry) {
+        registry.add("AUTH_SERVICE_URL", () -> "http://localhost:" + authService.getAddress().getPort());
+        registry.add("spring.cloud.openfeign.client.config.auth-service.read-timeout", () -> 200);
+        registry.add("resilience4j.circuitbreaker.instances.auth-service.sliding-window-size", () -> 2);
+        registry.add("resilience4j.circuitbreaker.instances.auth-service.minimum-number-of-calls", () -> 2);
+        registry.add("resilience4j.circuitbreaker.instances.auth-service.wait-duration-in-open-state", () -> "1m");
+    }
+
+    @AfterAll
+    static void stopAuthService() {
+        authService.stop(0);
+    }
+
+    @BeforeEach
+    void resetCircuitBreaker() {
+        circuitBreakerRegistry.circuitBreaker(AuthServiceClientConfig.AUTH_SERVICE).reset();
+        stubCalls.set(0);
+    }
+
+    @Test
+    @DisplayName("Should open circuit breaker on slow Auth Service and reject next requests without calling it")
+    void givenSlowAuthService_whenRequestsWithToken_thenCircuitBreakerOpens() throws Exception {
+        // Given
+        var path = "/api/v1/users/" + UUID.randomUUID();
+        var token = JWT.create()
+                .withSubject(UUID.randomUUID().toString())
+                .withClaim("role", "ROLE_USER")
+                .withExpiresAt(Instant.now().plus(1, ChronoUnit.HOURS))
+                .sign(Algorithm.HMAC256("SECRET"));
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get(path).header("Authorization", "Bearer " + token))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        // Then
+        var circuitBreaker = circuitBreakerRegistry.circuitBreaker(AuthServiceClientConfig.AUTH_SERVICE);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(2, stubCalls.get());
+        assertEquals(3, circuitBreaker.getMetrics().getNumberOfNotPermittedCalls());
+    }
+
+    private static HttpServer startAuthServiceStub() {
+        try {
+            var server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.createContext("/api/v1/auth/validate", exchange -> {
+                stubCalls.incrementAndGet();
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                var body = "{\"success\":true,\"data\":true}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
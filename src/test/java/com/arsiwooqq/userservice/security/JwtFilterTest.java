@@ -2,9 +2,14 @@ package com.arsiwooqq.userservice.security;
 
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.arsiwooqq.userservice.cache.SingleFlight;
 import com.arsiwooqq.userservice.client.AuthServiceClient;
 import com.arsiwooqq.userservice.dto.ApiResponse;
 import com.arsiwooqq.userservice.dto.ValidateTokenRequest;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,13 +20,25 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.io.IOException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -41,6 +58,25 @@ class JwtFilterTest {
     @Mock
     private AuthServiceClient authServiceClient;
 
+    @Spy
+    private TokenValidationCache tokenValidationCache = new TokenValidationCache(new SimpleMeterRegistry(),
+            mock(StringRedisTemplate.class), true, 100, 300, false, "EPOCH_KEY");
+
+    @Spy
+    private LocalTokenVerifier localTokenVerifier = new LocalTokenVerifier(new SimpleMeterRegistry(),
+            LocalTokenVerifier.Mode.REMOTE, "", "", "", 5, 0.0);
+
+    @Spy
+    private CircuitBreaker authServiceCircuitBreaker = CircuitBreaker.ofDefaults("auth-service");
+
+    @Spy
+    private Bulkhead authServiceBulkhead = Bulkhead.ofDefaults("auth-service");
+
+    private final Counter coalescedValidations = new SimpleMeterRegistry().counter("coalesced");
+
+    @Spy
+    private SingleFlight<String, Boolean> tokenValidations = new SingleFlight<>(coalescedValidations);
+
     @InjectMocks
     private JwtFilter jwtFilter;
 
@@ -102,7 +138,7 @@ class JwtFilterTest {
         verify(filterChain).doFilter(request, response);
         var authentication = SecurityContextHolder.getContext().getAuthentication();
         assertNotNull(authentication);
-        assertEquals("123", authentication.getPrincipal());
+        assertEquals("123", authentication.getName());
         assertTrue(authentication.getAuthorities().contains(new SimpleGrantedAuthority("USER")));
     }
 
@@ -110,7 +146,7 @@ class JwtFilterTest {
     @DisplayName("Should continue filter chain without authentication when token validation returns false")
     void givenInvalidToken_whenDoFilterInternal_thenContinueWithoutAuthentication() throws ServletException, IOException {
         // Given
-        var token = "TOKEN";
+        var token = token();
 
         var authResponse = ApiResponse.<Boolean>builder()
                 .success(true)
@@ -132,7 +168,7 @@ class JwtFilterTest {
     @DisplayName("Should continue filter chain without authentication when authServiceClient throws exception")
     void givenAuthServiceException_whenDoFilterInternal_thenContinueWithoutAuthentication() throws ServletException, IOException {
         // Given
-        var token = "TOKEN";
+        var token = token();
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
         when(authServiceClient.validate(any(ValidateTokenRequest.class))).thenThrow(new RuntimeException());
@@ -144,4 +180,253 @@ class JwtFilterTest {
         verify(filterChain).doFilter(request, response);
         assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
+
+    @Test
+    @DisplayName("Should not call Auth Service again for already validated token")
+    void givenValidatedToken_whenDoFilterInternalTwice_thenValidateOnce() throws ServletException, IOException {
+        // Given
+        var token = JWT.create()
+                .withSubject("123")
+                .withClaim("role", "USER")
+                .withExpiresAt(Instant.now().plus(1, ChronoUnit.DAYS))
+                .sign(Algorithm.HMAC256("SECRET"));
+
+        var authResponse = ApiResponse.<Boolean>builder()
+                .success(true)
+                .data(true)
+                .build();
+
+        // When
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(authServiceClient.validate(any(ValidateTokenRequest.class))).thenReturn(authResponse);
+
+        jwtFilter.doFilterInternal(request, response, filterChain);
+        SecurityContextHolder.clearContext();
+        jwtFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(authServiceClient, times(1)).validate(any(ValidateTokenRequest.class));
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    @DisplayName("Should authenticate user without calling Auth Service when token is verified locally")
+    void givenLocalVerification_whenDoFilterInternal_thenAuthenticateWithoutAuthService()
+            throws ServletException, IOException, NoSuchAlgorithmException {
+        // Given
+        var generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        var keyPair = generator.generateKeyPair();
+        var publicKey = "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----";
+        var localVerifier = new LocalTokenVerifier(new SimpleMeterRegistry(), LocalTokenVerifier.Mode.LOCAL,
+                publicKey, "", "", 5, 0.0);
+        var filter = new JwtFilter(authServiceClient, tokenValidationCache, localVerifier,
+                authServiceCircuitBreaker, authServiceBulkhead, tokenValidations);
+
+        var token = JWT.create()
+                .withSubject("123")
+                .withClaim("role", "USER")
+                .withExpiresAt(Instant.now().plus(1, ChronoUnit.DAYS))
+                .sign(Algorithm.RSA256((RSAPublicKey) keyPair.getPublic(), (RSAPrivateKey) keyPair.getPrivate()));
+
+        // When
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(authServiceClient);
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals("123", authentication.getName());
+    }
+
+    @Test
+    @DisplayName("Should keep local result without counting mismatch when sampled Auth Service call fails")
+    void givenSampledVerificationAndAuthServiceDown_whenDoFilterInternal_thenAuthenticatesLocally()
+            throws ServletException, IOException, NoSuchAlgorithmException {
+        // Given
+        var keyPair = rsaKeyPair();
+        var meterRegistry = new SimpleMeterRegistry();
+        var filter = sampledFilter(meterRegistry, keyPair);
+
+        // When
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + rsaToken(keyPair));
+        when(authServiceClient.validate(any(ValidateTokenRequest.class))).thenThrow(new RuntimeException());
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(filterChain).doFilter(request, response);
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(0, meterRegistry.counter("security.token.verification.remote.mismatch").count());
+        assertEquals(1, meterRegistry.counter("security.token.verification.remote.unavailable").count());
+    }
+
+    @Test
+    @DisplayName("Should reject token and count mismatch when sampled Auth Service call rejects it")
+    void givenSampledVerificationAndRejectedToken_whenDoFilterInternal_thenContinueWithoutAuthentication()
+            throws ServletException, IOException, NoSuchAlgorithmException {
+        // Given
+        var keyPair = rsaKeyPair();
+        var meterRegistry = new SimpleMeterRegistry();
+        var filter = sampledFilter(meterRegistry, keyPair);
+        var authResponse = ApiResponse.<Boolean>builder()
+                .success(true)
+                .data(false)
+                .build();
+
+        // When
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + rsaToken(keyPair));
+        when(authServiceClient.validate(any(ValidateTokenRequest.class))).thenReturn(authResponse);
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(filterChain).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, meterRegistry.counter("security.token.verification.remote.mismatch").count());
+        assertEquals(0, meterRegistry.counter("security.token.verification.remote.unavailable").count());
+    }
+
+    @Test
+    @DisplayName("Should continue without authentication and not call Auth Service when circuit breaker is open")
+    void givenOpenCircuitBreaker_whenDoFilterInternal_thenFailFast() throws ServletException, IOException {
+        // Given
+        authServiceCircuitBreaker.transitionToOpenState();
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token());
+
+        // When
+        jwtFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(authServiceClient);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    @DisplayName("Should share one Auth Service call between concurrent requests with the same token")
+    void givenConcurrentRequestsWithSameToken_whenDoFilterInternal_thenValidateOnce() throws Exception {
+        // Given
+        var authResponse = ApiResponse.<Boolean>builder()
+                .success(true)
+                .data(false)
+                .build();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(4);
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token());
+        when(authServiceClient.validate(any(ValidateTokenRequest.class))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return authResponse;
+        });
+
+        // When
+        var requests = new CompletableFuture<?>[4];
+        requests[0] = CompletableFuture.runAsync(this::filter, executor);
+        started.await(5, TimeUnit.SECONDS);
+        for (int i = 1; i < requests.length; i++) {
+            requests[i] = CompletableFuture.runAsync(this::filter, executor);
+        }
+        while (coalescedValidations.count() < requests.length - 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        CompletableFuture.allOf(requests).get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Then
+        verify(authServiceClient, times(1)).validate(any(ValidateTokenRequest.class));
+        verify(filterChain, times(requests.length)).doFilter(request, response);
+    }
+
+    private void filter() {
+        try {
+            jwtFilter.doFilterInternal(request, response, filterChain);
+        } catch (ServletException | IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("Should continue without authentication and not call Auth Service when token is not a JWT")
+    void givenMalformedToken_whenDoFilterInternal_thenSkipValidation() throws ServletException, IOException {
+        // Given
+        when(request.getHeader("Authorization")).thenReturn("Bearer TOKEN");
+
+        // When
+        jwtFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(authServiceClient);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    @DisplayName("Should set shared authority for known role")
+    void givenKnownRole_whenDoFilterInternal_thenUsesSharedAuthorities() throws ServletException, IOException {
+        // Given
+        var token = JWT.create()
+                .withSubject("123")
+                .withClaim("role", "ROLE_ADMIN")
+                .withExpiresAt(Instant.now().plus(1, ChronoUnit.DAYS))
+                .sign(Algorithm.HMAC256("SECRET"));
+
+        var authResponse = ApiResponse.<Boolean>builder()
+                .success(true)
+                .data(true)
+                .build();
+
+        // When
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(authServiceClient.validate(any(ValidateTokenRequest.class))).thenReturn(authResponse);
+
+        jwtFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertSame(new JwtPrincipal("1", "ROLE_ADMIN", null).authorities(), authentication.getAuthorities());
+        assertTrue(authentication.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ADMIN")));
+    }
+
+    private JwtFilter sampledFilter(SimpleMeterRegistry meterRegistry, KeyPair keyPair) {
+        var publicKey = "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----";
+        // every request is sampled
+        var sampledVerifier = new LocalTokenVerifier(meterRegistry, LocalTokenVerifier.Mode.SAMPLED,
+                publicKey, "", "", 5, 1.0);
+        return new JwtFilter(authServiceClient, tokenValidationCache, sampledVerifier,
+                authServiceCircuitBreaker, authServiceBulkhead, tokenValidations);
+    }
+
+    private KeyPair rsaKeyPair() throws NoSuchAlgorithmException {
+        var generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    private String rsaToken(KeyPair keyPair) {
+        return JWT.create()
+                .withSubject("123")
+                .withClaim("role", "USER")
+                .withExpiresAt(Instant.now().plus(1, ChronoUnit.DAYS))
+                .sign(Algorithm.RSA256((RSAPublicKey) keyPair.getPublic(), (RSAPrivateKey) keyPair.getPrivate()));
+    }
+
+    private String token() {
+        return JWT.create()
+                .withSubject("123")
+                .withClaim("role", "USER")
+                .withExpiresAt(Instant.now().plus(1, ChronoUnit.DAYS))
+                .sign(Algorithm.HMAC256("SECRET"));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,189 @@
+package com.arsiwooqq.userservice.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalTokenVerifierTest {
+    private static KeyPair keyPair;
+    private static KeyPair otherKeyPair;
+
+    @BeforeAll
+    static void generateKeys() throws NoSuchAlgorithmException {
+        var generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+        otherKeyPair = generator.generateKeyPair();
+    }
+
+    @Test
+    @DisplayName("Should accept token signed with configured key")
+    void givenTokenSignedWithConfiguredKey_whenVerify_thenReturnsTrue() {
+        // Given
+        var verifier = verifier(pem(keyPair), "");
+        var token = token(keyPair, Instant.now().plus(1, ChronoUnit.HOURS), null);
+
+        // When, Then
+        assertTrue(verifier.verify(JWT.decode(token)));
+    }
+
+    @Test
+    @DisplayName("Should reject token signed with another key")
+    void givenTokenSignedWithOtherKey_whenVerify_thenReturnsFalse() {
+        // Given
+        var verifier = verifier(pem(keyPair), "");
+        var token = token(otherKeyPair, Instant.now().plus(1, ChronoUnit.HOURS), null);
+
+        // When, Then
+        assertFalse(verifier.verify(JWT.decode(token)));
+    }
+
+    @Test
+    @DisplayName("Should reject expired token")
+    void givenExpiredToken_whenVerify_thenReturnsFalse() {
+        // Given
+        var verifier = verifier(pem(keyPair), "");
+        var token = token(keyPair, Instant.now().minus(1, ChronoUnit.MINUTES), null);
+
+        // When, Then
+        assertFalse(verifier.verify(JWT.decode(token)));
+    }
+
+    @Test
+    @DisplayName("Should reject token signed with another algorithm")
+    void givenHmacSignedToken_whenVerify_thenReturnsFalse() {
+        // Given
+        var verifier = verifier(pem(keyPair), "");
+        var token = JWT.create()
+                .withSubject("123")
+                .withExpiresAt(Instant.now().plus(1, ChronoUnit.HOURS))
+                .sign(Algorithm.HMAC256("SECRET"));
+
+        // When, Then
+        assertFalse(verifier.verify(JWT.decode(token)));
+    }
+
+    @Test
+    @DisplayName("Should verify token with key loaded from JWKS")
+    void givenJwks_whenVerify_thenUsesKeyById() throws IOException {
+        // Given
+        var server = jwksServer(jwk(keyPair, "KEY_ID"));
+
+        try {
+            var verifier = verifier("", "http://localhost:" + server.getAddress().getPort() + "/jwks");
+
+            // When, Then
+            assertTrue(verifier.verify(JWT.decode(token(keyPair, Instant.now().plus(1, ChronoUnit.HOURS), "KEY_ID"))));
+            assertFalse(verifier.verify(JWT.decode(token(otherKeyPair, Instant.now().plus(1, ChronoUnit.HOURS), "OTHER_ID"))));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @DisplayName("Should verify token without key id with the only key of JWKS")
+    void givenJwksWithOneKeyAndTokenWithoutKeyId_whenVerify_thenUsesOnlyKey() throws IOException {
+        // Given
+        var server = jwksServer(jwk(keyPair, "KEY_ID"));
+
+        try {
+            var verifier = verifier("", "http://localhost:" + server.getAddress().getPort() + "/jwks");
+
+            // When, Then
+            assertTrue(verifier.verify(JWT.decode(token(keyPair, Instant.now().plus(1, ChronoUnit.HOURS), null))));
+            assertFalse(verifier.verify(JWT.decode(token(otherKeyPair, Instant.now().plus(1, ChronoUnit.HOURS), null))));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject token without key id when JWKS has several keys")
+    void givenJwksWithSeveralKeysAndTokenWithoutKeyId_whenVerify_thenReturnsFalse() throws IOException {
+        // Given
+        var server = jwksServer(jwk(keyPair, "KEY_ID"), jwk(otherKeyPair, "OTHER_ID"));
+
+        try {
+            var verifier = verifier("", "http://localhost:" + server.getAddress().getPort() + "/jwks");
+
+            // When, Then
+            assertFalse(verifier.verify(JWT.decode(token(keyPair, Instant.now().plus(1, ChronoUnit.HOURS), null))));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail to start local verification without a key source")
+    void givenNoKeySource_whenCreate_thenThrowsException() {
+        // Given, When, Then
+        assertThrows(IllegalStateException.class, () -> verifier("", ""));
+    }
+
+    private LocalTokenVerifier verifier(String publicKey, String jwksUri) {
+        return new LocalTokenVerifier(new SimpleMeterRegistry(), LocalTokenVerifier.Mode.LOCAL,
+                publicKey, jwksUri, "", 5, 0.0);
+    }
+
+    private String token(KeyPair keys, Instant expiresAt, String keyId) {
+        var builder = JWT.create()
+                .withSubject("123")
+                .withClaim("role", "USER")
+                .withExpiresAt(expiresAt);
+        if (keyId != null) {
+            builder.withKeyId(keyId);
+        }
+        return builder.sign(Algorithm.RSA256((RSAPublicKey) keys.getPublic(), (RSAPrivateKey) keys.getPrivate()));
+    }
+
+    private String pem(KeyPair keys) {
+        return "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(keys.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----";
+    }
+
+    private String jwk(KeyPair keys, String keyId) {
+        var publicKey = (RSAPublicKey) keys.getPublic();
+        var encoder = Base64.getUrlEncoder().withoutPadding();
+        return """
+                {"kty":"RSA","kid":"%s","n":"%s","e":"%s"}""".formatted(keyId,
+                encoder.encodeToString(unsigned(publicKey.getModulus().toByteArray())),
+                encoder.encodeToString(unsigned(publicKey.getPublicExponent().toByteArray())));
+    }
+
+    private HttpServer jwksServer(String... keys) throws IOException {
+        var body = ("{\"keys\":[" + String.join(",", keys) + "]}").getBytes(StandardCharsets.UTF_8);
+        var server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/jwks", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    private byte[] unsigned(byte[] bytes) {
+        return bytes.length > 1 && bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+}
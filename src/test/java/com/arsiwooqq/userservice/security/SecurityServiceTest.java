@@ -2,10 +2,8 @@ package com.arsiwooqq.userservice.security;
 
 import com.arsiwooqq.userservice.dto.CardCreateRequest;
 import com.arsiwooqq.userservice.dto.UserCreateRequest;
-import com.arsiwooqq.userservice.entity.Card;
-import com.arsiwooqq.userservice.entity.User;
 import com.arsiwooqq.userservice.exception.AccessDeniedException;
-import com.arsiwooqq.userservice.repository.CardRepository;
+import com.arsiwooqq.userservice.service.CardService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -13,19 +11,25 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 
 import java.time.LocalDate;
-import java.util.Optional;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class SecurityServiceTest {
     @Mock
-    private CardRepository cardRepository;
+    private CardService cardService;
+
+    @Mock
+    private ObjectProvider<CardOwners> cardOwners;
 
     @InjectMocks
     private SecurityService securityService;
@@ -129,39 +133,69 @@ class SecurityServiceTest {
             // Given
             var userId = UUID.randomUUID().toString();
             var cardId = UUID.randomUUID();
-            var card = new Card(
-                    cardId,
-                    getUserWithUserId(userId),
-                    "TEST_NUMBER",
-                    "TEST_HOLDER",
-                    LocalDate.now().plusDays(1)
-            );
 
             // When
-            when(cardRepository.findCardById(cardId)).thenReturn(Optional.of(card));
+            when(cardService.isOwnedBy(cardId, userId)).thenReturn(true);
             var result = securityService.canAccessCard(userId, cardId);
 
             // Then
             assertTrue(result);
         }
 
+        @Test
+        @DisplayName("Should remember confirmed owner for the rest of the request")
+        void givenOwner_whenCanAccessCard_thenRemembersOwner() {
+            // Given
+            var userId = UUID.randomUUID().toString();
+            var cardId = UUID.randomUUID();
+            var owners = new CardOwners();
+
+            // When
+            when(cardService.isOwnedBy(cardId, userId)).thenReturn(true);
+            when(cardOwners.getIfAvailable()).thenReturn(owners);
+            securityService.canAccessCard(userId, cardId);
+
+            // Then
+            assertEquals(userId, owners.get(cardId));
+        }
+
+        @Test
+        @DisplayName("Should not remember owner when access is denied")
+        void givenOtherUser_whenCanAccessCard_thenRemembersNothing() {
+            // Given
+            var userId = UUID.randomUUID().toString();
+            var cardId = UUID.randomUUID();
+
+            // When
+            when(cardService.isOwnedBy(cardId, userId)).thenReturn(false);
+            assertThrows(AccessDeniedException.class, () -> securityService.canAccessCard(userId, cardId));
+
+            // Then
+            verify(cardOwners, never()).getIfAvailable();
+        }
+
         @Test
         @DisplayName("Should throw exception when principal's user id and card's user id differ")
         void givenDifferentId_whenCanAccessCard_thenThrowsException() {
             // Given
             var userId = UUID.randomUUID().toString();
-            var card = new Card(
-                    UUID.randomUUID(),
-                    getUserWithUserId(userId),
-                    "TEST_NUMBER",
-                    "TEST_HOLDER",
-                    LocalDate.now().plusDays(1)
-            );
+            var cardId = UUID.randomUUID();
 
             // When, Then
-            when(cardRepository.findCardById(card.getId())).thenReturn(Optional.of(card));
-            assertThrows(AccessDeniedException.class,
-                    () -> securityService.canAccessCard(UUID.randomUUID().toString(), card.getId()));
+            when(cardService.isOwnedBy(cardId, userId)).thenReturn(false);
+            assertThrows(AccessDeniedException.class, () -> securityService.canAccessCard(userId, cardId));
+        }
+
+        @Test
+        @DisplayName("Should throw exception when card does not exist")
+        void givenNonExistingCard_whenCanAccessCard_thenThrowsException() {
+            // Given
+            var userId = UUID.randomUUID().toString();
+            var cardId = UUID.randomUUID();
+
+            // When, Then
+            when(cardService.isOwnedBy(cardId, userId)).thenReturn(false);
+            assertThrows(AccessDeniedException.class, () -> securityService.canAccessCard(userId, cardId));
         }
 
         @Test
@@ -198,17 +232,5 @@ class SecurityServiceTest {
                 LocalDate.now().plusDays(1)
         );
     }
-
-    private User getUserWithUserId(String userId) {
-        return new User(
-                UUID.randomUUID(),
-                userId,
-                "TEST_NAME",
-                "TEST_SURNAME",
-                LocalDate.now().minusDays(1),
-                "test",
-                null
-        );
-    }
 }
 
@@ -0,0 +1,158 @@
+package com.arsiwooqq.userservice.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TokenValidationCacheTest {
+    private static final String EPOCH_KEY = "EPOCH_KEY";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private TokenValidationCache tokenValidationCache;
+    private AtomicInteger remoteCalls;
+
+    @BeforeEach
+    void setUp() {
+        tokenValidationCache = new TokenValidationCache(new SimpleMeterRegistry(), redisTemplate,
+                true, 100, 300, true, EPOCH_KEY);
+        remoteCalls = new AtomicInteger();
+    }
+
+    @Nested
+    @DisplayName("Validate tests")
+    class ValidateTests {
+        @Test
+        @DisplayName("Should validate remotely once and serve next result from cache")
+        void givenValidToken_whenValidateTwice_thenCallsRemoteOnce() {
+            // Given
+            var token = token(Instant.now().plus(1, ChronoUnit.HOURS));
+
+            // When
+            var first = tokenValidationCache.validate(JWT.decode(token), () -> remote(true));
+            var second = tokenValidationCache.validate(JWT.decode(token), () -> remote(true));
+
+            // Then
+            assertTrue(first);
+            assertTrue(second);
+            assertEquals(1, remoteCalls.get());
+        }
+
+        @Test
+        @DisplayName("Should not cache negative results")
+        void givenInvalidToken_whenValidateTwice_thenCallsRemoteTwice() {
+            // Given
+            var token = token(Instant.now().plus(1, ChronoUnit.HOURS));
+
+            // When
+            tokenValidationCache.validate(JWT.decode(token), () -> remote(false));
+            var result = tokenValidationCache.validate(JWT.decode(token), () -> remote(false));
+
+            // Then
+            assertFalse(result);
+            assertEquals(2, remoteCalls.get());
+        }
+
+        @Test
+        @DisplayName("Should not cache token that has already expired")
+        void givenExpiredToken_whenValidateTwice_thenCallsRemoteTwice() {
+            // Given
+            var token = token(Instant.now().minus(1, ChronoUnit.MINUTES));
+
+            // When
+            tokenValidationCache.validate(JWT.decode(token), () -> remote(true));
+            tokenValidationCache.validate(JWT.decode(token), () -> remote(true));
+
+            // Then
+            assertEquals(2, remoteCalls.get());
+        }
+
+        @Test
+        @DisplayName("Should cache token without expiry claim")
+        void givenTokenWithoutExpiry_whenValidateTwice_thenCallsRemoteOnce() {
+            // Given
+            var token = JWT.decode(JWT.create().withSubject("123").sign(Algorithm.HMAC256("SECRET")));
+
+            // When
+            tokenValidationCache.validate(token, () -> remote(true));
+            tokenValidationCache.validate(token, () -> remote(true));
+
+            // Then
+            assertEquals(1, remoteCalls.get());
+        }
+    }
+
+    @Nested
+    @DisplayName("Revocation epoch tests")
+    class RevocationEpochTests {
+        @Test
+        @DisplayName("Should drop cached results when revocation epoch changes")
+        void givenEpochChanged_whenCheckRevocationEpoch_thenValidatesRemotelyAgain() {
+            // Given
+            var token = token(Instant.now().plus(1, ChronoUnit.HOURS));
+            when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+            when(valueOperations.get(EPOCH_KEY)).thenReturn("1", "2");
+            tokenValidationCache.checkRevocationEpoch();
+            tokenValidationCache.validate(JWT.decode(token), () -> remote(true));
+
+            // When
+            tokenValidationCache.checkRevocationEpoch();
+            tokenValidationCache.validate(JWT.decode(token), () -> remote(true));
+
+            // Then
+            assertEquals(2, remoteCalls.get());
+        }
+
+        @Test
+        @DisplayName("Should keep cached results while revocation epoch is unchanged")
+        void givenSameEpoch_whenCheckRevocationEpoch_thenServesFromCache() {
+            // Given
+            var token = token(Instant.now().plus(1, ChronoUnit.HOURS));
+            when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+            when(valueOperations.get(EPOCH_KEY)).thenReturn("1");
+            tokenValidationCache.checkRevocationEpoch();
+            tokenValidationCache.validate(JWT.decode(token), () -> remote(true));
+
+            // When
+            tokenValidationCache.checkRevocationEpoch();
+            tokenValidationCache.validate(JWT.decode(token), () -> remote(true));
+
+            // Then
+            assertEquals(1, remoteCalls.get());
+        }
+    }
+
+    private boolean remote(boolean result) {
+        remoteCalls.incrementAndGet();
+        return result;
+    }
+
+    private String token(Instant expiresAt) {
+        return JWT.create()
+                .withSubject("123")
+                .withClaim("role", "USER")
+                .withExpiresAt(expiresAt)
+                .sign(Algorithm.HMAC256("SECRET"));
+    }
+}
@@ -1,14 +1,22 @@
 package com.arsiwooqq.userservice.service.impl;
 
+import com.arsiwooqq.userservice.cache.CacheInvalidator;
+import com.arsiwooqq.userservice.cache.CacheKey;
+import com.arsiwooqq.userservice.cache.NegativeLookupCache;
+import com.arsiwooqq.userservice.cache.VersionedCacheWriter;
 import com.arsiwooqq.userservice.dto.CardCreateRequest;
 import com.arsiwooqq.userservice.dto.CardResponse;
+import com.arsiwooqq.userservice.dto.PageCount;
 import com.arsiwooqq.userservice.entity.Card;
 import com.arsiwooqq.userservice.entity.User;
 import com.arsiwooqq.userservice.exception.CardNotFoundException;
 import com.arsiwooqq.userservice.exception.CardNumberAlreadyExistsException;
+import com.arsiwooqq.userservice.exception.InvalidCursorException;
 import com.arsiwooqq.userservice.exception.UserNotFoundException;
 import com.arsiwooqq.userservice.mapper.CardMapper;
 import com.arsiwooqq.userservice.repository.CardRepository;
+import com.arsiwooqq.userservice.repository.CountedId;
+import com.arsiwooqq.userservice.security.CardOwners;
 import com.arsiwooqq.userservice.service.UserService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -17,9 +25,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -27,7 +41,10 @@ import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,6 +58,24 @@ class CardServiceImplTest {
     @Mock
     private CardMapper cardMapper;
 
+    @Mock
+    private NegativeLookupCache negativeLookupCache;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache cache;
+
+    @Mock
+    private CacheInvalidator cacheInvalidator;
+
+    @Mock
+    private VersionedCacheWriter versionedCacheWriter;
+
+    @Mock
+    private ObjectProvider<CardOwners> cardOwners;
+
     @InjectMocks
     private CardServiceImpl cardService;
 
@@ -70,6 +105,8 @@ class CardServiceImplTest {
 
             verify(cardRepository, times(1)).save(card);
             verify(cardRepository, times(1)).existsByNumber(request.number());
+            verify(userService, times(1)).refreshUserCache(user);
+            assertEquals(List.of(card), user.getCards());
         }
 
         @Test
@@ -117,16 +154,55 @@ class CardServiceImplTest {
             var response = createCardResponse(card, UUID.randomUUID().toString());
 
             // When
-            when(cardRepository.findCardById(card.getId())).thenReturn(Optional.of(card));
-            when(cardMapper.toResponse(any(Card.class))).thenReturn(response);
+            when(cardRepository.findResponseById(card.getId())).thenReturn(Optional.of(response));
 
             var serviceResponse = cardService.getById(card.getId());
 
             // Then
             assertEquals(response, serviceResponse);
 
-            verify(cardRepository, times(1)).findCardById(card.getId());
-            verify(cardMapper, times(1)).toResponse(card);
+            verify(cardRepository, times(1)).findResponseById(card.getId());
+            verify(cardRepository, never()).findCardById(any());
+            verify(cardMapper, never()).toResponse(any());
+        }
+
+        @Test
+        @DisplayName("Should cache card response with card version after loading it from database")
+        void givenExistingCard_whenGetById_thenCachesCardResponse() {
+            // Given
+            var card = createCard("TEST_NUMBER", "TEST_HOLDER", LocalDate.now().plusDays(1));
+            var response = createCardResponse(card, UUID.randomUUID().toString());
+
+            // When
+            when(cacheManager.getCache(CardServiceImpl.CARD_CACHE)).thenReturn(cache);
+            when(cardRepository.findResponseById(card.getId())).thenReturn(Optional.of(response));
+
+            cardService.getById(card.getId());
+
+            // Then
+            verify(versionedCacheWriter, times(1)).put(CardServiceImpl.CARD_CACHE, card.getId().toString(), response,
+                    CardServiceImpl.CARD_VERSION);
+            verify(cache, never()).put(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should return cached card without querying database")
+        void givenCachedCard_whenGetById_thenReturnsCachedCard() {
+            // Given
+            var card = createCard("TEST_NUMBER", "TEST_HOLDER", LocalDate.now().plusDays(1));
+            var response = createCardResponse(card, UUID.randomUUID().toString());
+
+            // When
+            when(cacheManager.getCache(CardServiceImpl.CARD_CACHE)).thenReturn(cache);
+            when(cache.get(card.getId().toString(), CardResponse.class)).thenReturn(response);
+
+            var serviceResponse = cardService.getById(card.getId());
+
+            // Then
+            assertEquals(response, serviceResponse);
+
+            verify(cardRepository, never()).findResponseById(any());
+            verify(negativeLookupCache, never()).isMissing(any(), any());
         }
 
         @Test
@@ -136,13 +212,28 @@ class CardServiceImplTest {
             var card = createCard("TEST_NUMBER", "TEST_HOLDER", LocalDate.now().plusDays(1));
 
             // When
-            when(cardRepository.findCardById(card.getId())).thenReturn(Optional.empty());
+            when(cardRepository.findResponseById(card.getId())).thenReturn(Optional.empty());
 
             // Then
             assertThrows(CardNotFoundException.class, () -> cardService.getById(card.getId()));
 
-            verify(cardRepository, times(1)).findCardById(card.getId());
-            verify(cardMapper, never()).toResponse(any());
+            verify(cardRepository, times(1)).findResponseById(card.getId());
+            verify(negativeLookupCache, times(1)).markMissing(NegativeLookupCache.CARD_ID, card.getId());
+        }
+
+        @Test
+        @DisplayName("Should throw CardNotFoundException without querying database when card is known to be missing")
+        void givenKnownMissingCard_whenGetById_thenThrowsWithoutQueryingDatabase() {
+            // Given
+            var cardId = UUID.randomUUID();
+
+            // When
+            when(negativeLookupCache.isMissing(NegativeLookupCache.CARD_ID, cardId)).thenReturn(true);
+
+            // Then
+            assertThrows(CardNotFoundException.class, () -> cardService.getById(cardId));
+
+            verify(cardRepository, never()).findResponseById(any());
         }
 
     }
@@ -158,12 +249,11 @@ class CardServiceImplTest {
                     LocalDate.now().plusDays(1));
             var response = createCardResponse(card, UUID.randomUUID().toString());
             var pageable = PageRequest.of(0, 10);
-            var ids = new PageImpl<>(List.of(card.getId()), pageable, 1);
+            var rows = List.of(new CountedId(card.getId(), 1));
 
             // When
-            when(cardRepository.findCardIds(pageable)).thenReturn(ids);
-            when(cardRepository.findAllWithUsersByIds(ids.getContent())).thenReturn(List.of(card));
-            when(cardMapper.toResponse(card)).thenReturn(response);
+            when(cardRepository.findCardIds(pageable)).thenReturn(rows);
+            when(cardRepository.findResponsesByIds(List.of(card.getId()))).thenReturn(List.of(response));
 
             var serviceResponse = cardService.getAllPaged(pageable);
 
@@ -172,8 +262,9 @@ class CardServiceImplTest {
             assertEquals(response, serviceResponse.getContent().get(0));
 
             verify(cardRepository, times(1)).findCardIds(pageable);
-            verify(cardRepository, times(1)).findAllWithUsersByIds(ids.getContent());
-            verify(cardMapper, times(1)).toResponse(card);
+            verify(cardRepository, times(1)).findResponsesByIds(List.of(card.getId()));
+            verify(cardRepository, never()).count();
+            verify(cardMapper, never()).toResponse(any());
         }
 
         @Test
@@ -181,11 +272,10 @@ class CardServiceImplTest {
         void givenNoCards_whenGetAllPaged_thenReturnsEmptyPage() {
             // Given
             var pageable = PageRequest.of(0, 10);
-            Page<UUID> ids = new PageImpl<>(List.of(), pageable, 0);
 
             // When
-            when(cardRepository.findCardIds(pageable)).thenReturn(ids);
-            when(cardRepository.findAllWithUsersByIds(ids.getContent())).thenReturn(List.of());
+            when(cardRepository.findCardIds(pageable)).thenReturn(List.of());
+            when(cardRepository.findResponsesByIds(List.of())).thenReturn(List.of());
 
             var serviceResponse = cardService.getAllPaged(pageable);
 
@@ -194,32 +284,252 @@ class CardServiceImplTest {
             assertEquals(0, serviceResponse.getContent().size());
 
             verify(cardRepository, times(1)).findCardIds(pageable);
-            verify(cardRepository, times(1)).findAllWithUsersByIds(ids.getContent());
+            verify(cardRepository, times(1)).findResponsesByIds(List.of());
+            verify(cardMapper, never()).toResponse(any());
+        }
+
+        @Test
+        @DisplayName("Should return slice without running count query when count is NONE")
+        void givenCountNone_whenGetAllPaged_thenReturnsSliceWithoutTotal() {
+            // Given
+            var card = createCard("TEST_NUMBER", "TEST_HOLDER", LocalDate.now().plusDays(1));
+            var pageable = PageRequest.of(0, 10);
+            var ids = new SliceImpl<>(List.of(card.getId()), pageable, false);
+
+            // When
+            when(cardRepository.findCardIdSlice(pageable)).thenReturn(ids);
+            when(cardRepository.findResponsesByIds(ids.getContent()))
+                    .thenReturn(List.of(createCardResponse(card, UUID.randomUUID().toString())));
+
+            var serviceResponse = cardService.getAllPaged(pageable, PageCount.NONE);
+
+            // Then
+            assertFalse(serviceResponse instanceof Page);
+            assertFalse(serviceResponse.hasNext());
+            assertEquals(1, serviceResponse.getNumberOfElements());
+
+            verify(cardRepository, never()).findCardIds(any());
+            verify(cardRepository, never()).count();
+        }
+
+        @Test
+        @DisplayName("Should take total from table statistics when count is ESTIMATED")
+        void givenCountEstimated_whenGetAllPaged_thenReturnsEstimatedTotal() {
+            // Given
+            var pageable = PageRequest.of(0, 10);
+            Slice<UUID> ids = new SliceImpl<>(List.of(), pageable, false);
+
+            // When
+            when(cardRepository.findCardIdSlice(pageable)).thenReturn(ids);
+            when(cardRepository.findResponsesByIds(List.of())).thenReturn(List.of());
+            when(cardRepository.estimateCount()).thenReturn(1000L);
+
+            var serviceResponse = (Page<CardResponse>) cardService.getAllPaged(pageable, PageCount.ESTIMATED);
+
+            // Then
+            assertEquals(1000, serviceResponse.getTotalElements());
+
+            verify(cardRepository, never()).count();
+        }
+    }
+
+    @Nested
+    @DisplayName("Get slice of cards by cursor")
+    class GetAllByCursorTests {
+        @Test
+        @DisplayName("Should return slice in id order with cursor of its last card when more cards exist")
+        void givenMoreCardsThanSize_whenGetAllByCursor_thenReturnsSliceWithNextCursor() {
+            // Given
+            var after = UUID.randomUUID();
+            var first = createCard("TEST_NUMBER_1", "TEST_HOLDER", LocalDate.now().plusDays(1));
+            var second = createCard("TEST_NUMBER_2", "TEST_HOLDER", LocalDate.now().plusDays(1));
+            var ids = List.of(first.getId(), second.getId(), UUID.randomUUID());
+            var userId = UUID.randomUUID().toString();
+
+            // When
+            when(cardRepository.findCardIdsAfter(after, Limit.of(3))).thenReturn(ids);
+            when(cardRepository.findResponsesByIds(ids.subList(0, 2)))
+                    .thenReturn(List.of(createCardResponse(second, userId), createCardResponse(first, userId)));
+
+            var serviceResponse = cardService.getAllByCursor(KeysetCursor.encode(after), 2);
+
+            // Then
+            assertEquals(List.of(first.getId(), second.getId()),
+                    serviceResponse.content().stream().map(CardResponse::id).toList());
+            assertEquals(KeysetCursor.encode(second.getId()), serviceResponse.nextCursor());
+
+            verify(cardRepository, never()).findFirstCardIds(any());
+        }
+
+        @Test
+        @DisplayName("Should return empty slice without next cursor when no cards exist")
+        void givenNoCards_whenGetAllByCursor_thenReturnsEmptySlice() {
+            // Given, When
+            when(cardRepository.findFirstCardIds(Limit.of(3))).thenReturn(List.of());
+            when(cardRepository.findResponsesByIds(List.of())).thenReturn(List.of());
+
+            var serviceResponse = cardService.getAllByCursor(null, 2);
+
+            // Then
+            assertEquals(0, serviceResponse.content().size());
+            assertNull(serviceResponse.nextCursor());
+
             verify(cardMapper, never()).toResponse(any());
         }
 
+        @Test
+        @DisplayName("Should throw InvalidCursorException when cursor is malformed")
+        void givenMalformedCursor_whenGetAllByCursor_thenThrowsInvalidCursorException() {
+            // Given, When, Then
+            assertThrows(InvalidCursorException.class, () -> cardService.getAllByCursor("AAAA", 2));
+
+            verifyNoInteractions(cardRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Get page of cards of a user")
+    class GetAllByUserIdTests {
+        @Test
+        @DisplayName("Should return page of user cards without looking up the user when cards exist")
+        void givenUserWithCards_whenGetAllByUserId_thenReturnsPage() {
+            // Given
+            var userId = UUID.randomUUID().toString();
+            var card = createCard("TEST_NUMBER", "TEST_HOLDER", LocalDate.now().plusDays(1));
+            var pageable = PageRequest.of(0, 10);
+            var page = new PageImpl<>(List.of(createCardResponse(card, userId)), pageable, 1);
+
+            // When
+            when(cardRepository.findResponsesByUserId(userId, pageable)).thenReturn(page);
+
+            var serviceResponse = cardService.getAllByUserId(userId, pageable);
+
+            // Then
+            assertEquals(page, serviceResponse);
+
+            verifyNoInteractions(userService);
+        }
+
+        @Test
+        @DisplayName("Should return empty page when user has no cards")
+        void givenUserWithoutCards_whenGetAllByUserId_thenReturnsEmptyPage() {
+            // Given
+            var userId = UUID.randomUUID().toString();
+            var pageable = PageRequest.of(0, 10);
+
+            // When
+            when(cardRepository.findResponsesByUserId(userId, pageable)).thenReturn(Page.empty(pageable));
+
+            var serviceResponse = cardService.getAllByUserId(userId, pageable);
+
+            // Then
+            assertTrue(serviceResponse.isEmpty());
+
+            verify(userService, times(1)).getByUserId(userId, false);
+        }
+
+        @Test
+        @DisplayName("Should throw UserNotFoundException when user does not exist")
+        void givenNonExistingUser_whenGetAllByUserId_thenThrowsUserNotFoundException() {
+            // Given
+            var userId = UUID.randomUUID().toString();
+            var pageable = PageRequest.of(0, 10);
+
+            // When
+            when(cardRepository.findResponsesByUserId(userId, pageable)).thenReturn(Page.empty(pageable));
+            when(userService.getByUserId(userId, false)).thenThrow(new UserNotFoundException(userId));
+
+            // Then
+            assertThrows(UserNotFoundException.class, () -> cardService.getAllByUserId(userId, pageable));
+        }
+    }
+
+    @Nested
+    @DisplayName("Card ownership")
+    class OwnershipTests {
+        @Test
+        @DisplayName("Should answer ownership from cached card without querying database")
+        void givenCachedCard_whenIsOwnedBy_thenComparesCachedUserId() {
+            // Given
+            var userId = UUID.randomUUID().toString();
+            var card = createCard("TEST_NUMBER", "TEST_HOLDER", LocalDate.now().plusDays(1));
+            var response = createCardResponse(card, userId);
+
+            // When
+            when(cacheManager.getCache(CardServiceImpl.CARD_CACHE)).thenReturn(cache);
+            when(cache.get(card.getId().toString(), CardResponse.class)).thenReturn(response);
+
+            // Then
+            assertTrue(cardService.isOwnedBy(card.getId(), userId));
+            assertFalse(cardService.isOwnedBy(card.getId(), UUID.randomUUID().toString()));
+            verifyNoInteractions(cardRepository);
+        }
+
+        @Test
+        @DisplayName("Should check ownership with existence query when card is not cached")
+        void givenNotCachedCard_whenIsOwnedBy_thenQueriesExistence() {
+            // Given
+            var userId = UUID.randomUUID().toString();
+            var cardId = UUID.randomUUID();
+
+            // When
+            when(cacheManager.getCache(CardServiceImpl.CARD_CACHE)).thenReturn(cache);
+            when(cardRepository.existsByIdAndUserUserId(cardId, userId)).thenReturn(true);
+
+            var result = cardService.isOwnedBy(cardId, userId);
+
+            // Then
+            assertTrue(result);
+            verify(cardRepository, times(1)).existsByIdAndUserUserId(cardId, userId);
+            verify(cardRepository, never()).findCardById(any());
+        }
     }
 
     @Nested
     @DisplayName("Delete card")
     class DeleteTests {
         @Test
-        @DisplayName("Should delete card and evict user cache when card exists")
-        void givenExistingCard_whenDelete_thenDeletesCardAndEvictsUserCache() {
+        @DisplayName("Should delete card, leave tombstone and refresh user cache when card exists")
+        void givenExistingCard_whenDelete_thenDeletesCardAndRefreshesUserCache() {
             // Given
-            var card = createCard("TEST_NUMBER", "TEST_HOLDER", LocalDate.now().plusDays(1));
-            var user = createUser(UUID.randomUUID().toString());
-            card.setUser(user);
+            var cardId = UUID.randomUUID();
+            var userId = UUID.randomUUID().toString();
+
+            // When
+            when(cardRepository.findOwnerUserIdById(cardId)).thenReturn(Optional.of(userId));
+            when(cardRepository.delete(cardId)).thenReturn(1);
+
+            cardService.delete(cardId);
+
+            // Then
+            verify(cardRepository, times(1)).findOwnerUserIdById(cardId);
+            verify(cardRepository, times(1)).delete(cardId);
+            verify(cardRepository, never()).findCardById(any());
+            verify(userService, times(1)).refreshCardsOf(userId);
+            verify(userService, never()).getEntityByUserId(any());
+            verify(cacheInvalidator, times(1)).evict(new CacheKey(CardServiceImpl.CARD_CACHE, cardId.toString()));
+            verify(versionedCacheWriter, times(1)).tombstone(CardServiceImpl.CARD_CACHE, cardId.toString());
+        }
+
+        @Test
+        @DisplayName("Should use owner confirmed during authorization instead of looking card up")
+        void givenOwnerConfirmedInRequest_whenDelete_thenSkipsOwnerLookup() {
+            // Given
+            var cardId = UUID.randomUUID();
+            var userId = UUID.randomUUID().toString();
+            var owners = new CardOwners();
+            owners.remember(cardId, userId);
 
             // When
-            when(cardRepository.findCardById(card.getId())).thenReturn(Optional.of(card));
+            when(cardOwners.getIfAvailable()).thenReturn(owners);
+            when(cardRepository.delete(cardId)).thenReturn(1);
 
-            cardService.delete(card.getId());
+            cardService.delete(cardId);
 
             // Then
-            verify(cardRepository, times(1)).findCardById(card.getId());
-            verify(cardRepository, times(1)).delete(card.getId());
-            verify(userService, times(1)).evictUserCache(card.getUser());
+            verify(cardRepository, never()).findOwnerUserIdById(any());
+            verify(cardRepository, times(1)).delete(cardId);
+            verify(userService, times(1)).refreshCardsOf(userId);
         }
 
         @Test
@@ -229,12 +539,12 @@ class CardServiceImplTest {
             var cardId = UUID.randomUUID();
 
             // When
-            when(cardRepository.findCardById(cardId)).thenReturn(Optional.empty());
+            when(cardRepository.findOwnerUserIdById(cardId)).thenReturn(Optional.empty());
 
             // Then
             assertThrows(CardNotFoundException.class, () -> cardService.delete(cardId));
 
-            verify(cardRepository, times(1)).findCardById(cardId);
+            verify(cardRepository, times(1)).findOwnerUserIdById(cardId);
             verify(cardRepository, never()).delete(any(UUID.class));
         }
     }
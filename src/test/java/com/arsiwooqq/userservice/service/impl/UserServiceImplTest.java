@@ -1,33 +1,59 @@
 package com.arsiwooqq.userservice.service.impl;
 
+import com.arsiwooqq.userservice.cache.CacheEntry;
+import com.arsiwooqq.userservice.cache.CacheInvalidator;
+import com.arsiwooqq.userservice.cache.CacheKey;
+import com.arsiwooqq.userservice.cache.CoalescingLoader;
+import com.arsiwooqq.userservice.cache.NegativeLookupCache;
+import com.arsiwooqq.userservice.cache.RedisLease;
+import com.arsiwooqq.userservice.cache.RefreshAhead;
+import com.arsiwooqq.userservice.cache.VersionedCacheWriter;
+import com.arsiwooqq.userservice.dto.CardResponse;
+import com.arsiwooqq.userservice.dto.PageCount;
 import com.arsiwooqq.userservice.dto.UserCreateRequest;
 import com.arsiwooqq.userservice.dto.UserResponse;
 import com.arsiwooqq.userservice.dto.UserUpdateRequest;
+import com.arsiwooqq.userservice.entity.Card;
 import com.arsiwooqq.userservice.entity.User;
+import com.arsiwooqq.userservice.exception.InvalidCursorException;
 import com.arsiwooqq.userservice.exception.UserAlreadyExistsException;
 import com.arsiwooqq.userservice.exception.UserNotFoundException;
 import com.arsiwooqq.userservice.mapper.UserMapper;
+import com.arsiwooqq.userservice.repository.CountedId;
+import com.arsiwooqq.userservice.repository.UserCardRow;
 import com.arsiwooqq.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,6 +70,28 @@ class UserServiceImplTest {
     @Mock
     private Cache cache;
 
+    @Mock
+    private Cache emailIndexCache;
+
+    @Mock
+    private CacheInvalidator cacheInvalidator;
+
+    @Mock
+    private NegativeLookupCache negativeLookupCache;
+
+    @Spy
+    private TransactionTemplate readOnlyTransactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Mock
+    private RefreshAhead refreshAhead;
+
+    @Mock
+    private VersionedCacheWriter versionedCacheWriter;
+
+    @Spy
+    private CoalescingLoader coalescingLoader = new CoalescingLoader(new SimpleMeterRegistry(), mock(RedisLease.class),
+            false, Duration.ofSeconds(5), Duration.ofMillis(200));
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -75,6 +123,8 @@ class UserServiceImplTest {
             verify(userMapper, times(1)).toEntity(request);
             verify(userMapper, times(1)).toResponse(user);
             verify(userRepository, times(1)).save(user);
+            verify(negativeLookupCache, times(1)).invalidate(NegativeLookupCache.USER_ID, request.userId());
+            verify(negativeLookupCache, times(1)).invalidate(NegativeLookupCache.USER_EMAIL, request.email());
         }
 
         @Test
@@ -128,7 +178,7 @@ class UserServiceImplTest {
             var response = createUserResponse(user);
 
             // When
-            when(userRepository.findUserByUserId(user.getUserId())).thenReturn(Optional.of(user));
+            when(userRepository.findWithCardsByUserId(user.getUserId())).thenReturn(Optional.of(user));
             when(userMapper.toResponse(user)).thenReturn(response);
 
             var serviceResponse = userService.getByUserId(user.getUserId());
@@ -136,7 +186,7 @@ class UserServiceImplTest {
             // Then
             assertEquals(response, serviceResponse);
 
-            verify(userRepository, times(1)).findUserByUserId(user.getUserId());
+            verify(userRepository, times(1)).findWithCardsByUserId(user.getUserId());
             verify(userMapper, times(1)).toResponse(user);
         }
 
@@ -147,33 +197,120 @@ class UserServiceImplTest {
             var userId = UUID.randomUUID().toString();
 
             // When
-            when(userRepository.findUserByUserId(userId)).thenReturn(Optional.empty());
+            when(userRepository.findWithCardsByUserId(userId)).thenReturn(Optional.empty());
 
             // Then
             assertThrows(UserNotFoundException.class, () -> userService.getByUserId(userId));
 
-            verify(userRepository, times(1)).findUserByUserId(userId);
+            verify(userRepository, times(1)).findWithCardsByUserId(userId);
             verify(userMapper, never()).toResponse(any());
+            verify(negativeLookupCache, times(1)).markMissing(NegativeLookupCache.USER_ID, userId);
         }
 
         @Test
-        @DisplayName("Should cache user by ID and email when getting existing user by ID")
+        @DisplayName("Should throw UserNotFoundException without querying database when user is known to be missing")
+        void givenKnownMissingUser_whenGetById_thenThrowsWithoutQueryingDatabase() {
+            // Given
+            var userId = UUID.randomUUID().toString();
+
+            // When
+            when(negativeLookupCache.isMissing(NegativeLookupCache.USER_ID, userId)).thenReturn(true);
+
+            // Then
+            assertThrows(UserNotFoundException.class, () -> userService.getByUserId(userId));
+
+            verify(userRepository, never()).findWithCardsByUserId(any());
+            verify(negativeLookupCache, never()).markMissing(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should cache user by ID and index its email when getting existing user by ID")
         void givenExistingUser_whenGetById_thenCachesUserByIdAndEmail() {
             // Given
             var user = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST@EMAIL");
             var response = createUserResponse(user);
 
             // When
-            when(userRepository.findUserByUserId(user.getUserId())).thenReturn(Optional.of(user));
+            when(userRepository.findWithCardsByUserId(user.getUserId())).thenReturn(Optional.of(user));
             when(userMapper.toResponse(user)).thenReturn(response);
             when(cacheManager.getCache(UserServiceImpl.USER_CACHE)).thenReturn(cache);
+            when(cacheManager.getCache(UserServiceImpl.USER_EMAIL_CACHE)).thenReturn(emailIndexCache);
 
             userService.getByUserId(user.getUserId());
 
             // Then
             verify(cacheManager, times(2)).getCache(UserServiceImpl.USER_CACHE);
-            verify(cache, times(1)).put(user.getUserId(), response);
-            verify(cache, times(1)).put(user.getEmail(), response);
+            verify(versionedCacheWriter, times(1)).put(UserServiceImpl.USER_CACHE, user.getUserId(), response,
+                    user.getVersion());
+            verify(emailIndexCache, times(1)).put(user.getEmail(), user.getUserId());
+        }
+
+        @Test
+        @DisplayName("Should return cached user without querying database when user is cached by ID")
+        void givenCachedUser_whenGetById_thenReturnsCachedUser() {
+            // Given
+            var user = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST@EMAIL");
+            var response = createUserResponse(user);
+
+            // When
+            when(cacheManager.getCache(UserServiceImpl.USER_CACHE)).thenReturn(cache);
+            when(cache.get(user.getUserId(), UserResponse.class)).thenReturn(response);
+
+            var serviceResponse = userService.getByUserId(user.getUserId());
+
+            // Then
+            assertEquals(response, serviceResponse);
+
+            verify(userRepository, never()).findWithCardsByUserId(any());
+            verify(cache, never()).put(any(), any());
+            verify(refreshAhead, times(1)).onHit(eq(UserServiceImpl.USER_CACHE), eq(user.getUserId()), any());
+        }
+
+        @Test
+        @DisplayName("Should load profile without cards and cache it apart from user with cards")
+        void givenExistingUser_whenGetProfileById_thenLoadsWithoutCardsAndCachesProfile() {
+            // Given
+            var user = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST@EMAIL");
+            var profile = new UserResponse(user.getUserId(), user.getName(), user.getSurname(), user.getBirthDate(),
+                    user.getEmail(), null);
+
+            // When
+            when(userRepository.findUserByUserId(user.getUserId())).thenReturn(Optional.of(user));
+            when(userMapper.toProfileResponse(user)).thenReturn(profile);
+            when(cacheManager.getCache(UserServiceImpl.USER_PROFILE_CACHE)).thenReturn(cache);
+
+            var serviceResponse = userService.getByUserId(user.getUserId(), false);
+
+            // Then
+            assertEquals(profile, serviceResponse);
+
+            verify(userRepository, never()).findWithCardsByUserId(any());
+            verify(userMapper, never()).toResponse(any());
+            verify(versionedCacheWriter, times(1)).put(UserServiceImpl.USER_PROFILE_CACHE, user.getUserId(), profile,
+                    user.getVersion());
+            verify(versionedCacheWriter, never()).put(eq(UserServiceImpl.USER_CACHE), any(), any(), anyLong());
+        }
+
+        @Test
+        @DisplayName("Should return cached profile without querying database when profile is cached by ID")
+        void givenCachedProfile_whenGetProfileById_thenReturnsCachedProfile() {
+            // Given
+            var user = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST@EMAIL");
+            var profile = new UserResponse(user.getUserId(), user.getName(), user.getSurname(), user.getBirthDate(),
+                    user.getEmail(), null);
+
+            // When
+            when(cacheManager.getCache(UserServiceImpl.USER_PROFILE_CACHE)).thenReturn(cache);
+            when(cache.get(user.getUserId(), UserResponse.class)).thenReturn(profile);
+
+            var serviceResponse = userService.getByUserId(user.getUserId(), false);
+
+            // Then
+            assertEquals(profile, serviceResponse);
+
+            verify(userRepository, never()).findUserByUserId(any());
+            verify(cacheManager, never()).getCache(UserServiceImpl.USER_CACHE);
+            verify(refreshAhead, times(1)).onHit(eq(UserServiceImpl.USER_PROFILE_CACHE), eq(user.getUserId()), any());
         }
     }
 
@@ -188,7 +325,7 @@ class UserServiceImplTest {
             var response = createUserResponse(user);
 
             // When
-            when(userRepository.findUserByEmail(user.getEmail())).thenReturn(Optional.of(user));
+            when(userRepository.findWithCardsByEmail(user.getEmail())).thenReturn(Optional.of(user));
             when(userMapper.toResponse(user)).thenReturn(response);
 
             var serviceResponse = userService.getByEmail(user.getEmail());
@@ -196,7 +333,7 @@ class UserServiceImplTest {
             // Then
             assertEquals(response, serviceResponse);
 
-            verify(userRepository, times(1)).findUserByEmail(user.getEmail());
+            verify(userRepository, times(1)).findWithCardsByEmail(user.getEmail());
             verify(userMapper, times(1)).toResponse(user);
         }
 
@@ -207,33 +344,104 @@ class UserServiceImplTest {
             var email = "TEST@EMAIL";
 
             // When
-            when(userRepository.findUserByEmail(email)).thenReturn(Optional.empty());
+            when(userRepository.findWithCardsByEmail(email)).thenReturn(Optional.empty());
 
             // Then
             assertThrows(UserNotFoundException.class, () -> userService.getByEmail(email));
 
-            verify(userRepository, times(1)).findUserByEmail(email);
+            verify(userRepository, times(1)).findWithCardsByEmail(email);
             verify(userMapper, never()).toResponse(any());
+            verify(negativeLookupCache, times(1)).markMissing(NegativeLookupCache.USER_EMAIL, email);
         }
 
         @Test
-        @DisplayName("Should cache user by ID and email when getting existing user by email")
+        @DisplayName("Should cache user by ID and index its email when getting existing user by email")
         void givenExistingUser_whenGetByEmail_thenCachesUserByIdAndEmail() {
             // Given
             var user = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST@EMAIL");
             var response = createUserResponse(user);
 
             // When
-            when(userRepository.findUserByEmail(user.getEmail())).thenReturn(Optional.of(user));
+            when(userRepository.findWithCardsByEmail(user.getEmail())).thenReturn(Optional.of(user));
             when(userMapper.toResponse(user)).thenReturn(response);
-            when(cacheManager.getCache(UserServiceImpl.USER_CACHE)).thenReturn(cache);
+            when(cacheManager.getCache(UserServiceImpl.USER_EMAIL_CACHE)).thenReturn(emailIndexCache);
 
             userService.getByEmail(user.getEmail());
 
             // Then
-            verify(cacheManager, times(2)).getCache(UserServiceImpl.USER_CACHE);
-            verify(cache, times(1)).put(user.getUserId(), response);
-            verify(cache, times(1)).put(user.getEmail(), response);
+            verify(cacheManager, times(3)).getCache(UserServiceImpl.USER_EMAIL_CACHE);
+            verify(versionedCacheWriter, times(1)).put(UserServiceImpl.USER_CACHE, user.getUserId(), response,
+                    user.getVersion());
+            verify(versionedCacheWriter, never()).put(any(), eq(user.getEmail()), any(), anyLong());
+            verify(emailIndexCache, times(1)).put(user.getEmail(), user.getUserId());
+        }
+
+        @Test
+        @DisplayName("Should resolve cached user through email index without querying database")
+        void givenIndexedEmail_whenGetByEmail_thenReturnsCachedUser() {
+            // Given
+            var user = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST@EMAIL");
+            var response = createUserResponse(user);
+
+            // When
+            when(cacheManager.getCache(UserServiceImpl.USER_CACHE)).thenReturn(cache);
+            when(cacheManager.getCache(UserServiceImpl.USER_EMAIL_CACHE)).thenReturn(emailIndexCache);
+            when(emailIndexCache.get(user.getEmail(), String.class)).thenReturn(user.getUserId());
+            when(cache.get(user.getUserId(), UserResponse.class)).thenReturn(response);
+
+            var serviceResponse = userService.getByEmail(user.getEmail());
+
+            // Then
+            assertEquals(response, serviceResponse);
+
+            verify(userRepository, never()).findWithCardsByEmail(any());
+        }
+
+        @Test
+        @DisplayName("Should load user from database when email index points to user with another email")
+        void givenStaleEmailIndex_whenGetByEmail_thenLoadsFromDatabase() {
+            // Given
+            var user = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST@EMAIL");
+            var response = createUserResponse(user);
+            var staleResponse = new UserResponse(user.getUserId(), user.getName(), user.getSurname(),
+                    user.getBirthDate(), "OLD@EMAIL", null);
+
+            // When
+            when(cacheManager.getCache(UserServiceImpl.USER_CACHE)).thenReturn(cache);
+            when(cacheManager.getCache(UserServiceImpl.USER_EMAIL_CACHE)).thenReturn(emailIndexCache);
+            when(emailIndexCache.get(user.getEmail(), String.class)).thenReturn(user.getUserId());
+            when(cache.get(user.getUserId(), UserResponse.class)).thenReturn(staleResponse);
+            when(userRepository.findWithCardsByEmail(user.getEmail())).thenReturn(Optional.of(user));
+            when(userMapper.toResponse(user)).thenReturn(response);
+
+            var serviceResponse = userService.getByEmail(user.getEmail());
+
+            // Then
+            assertEquals(response, serviceResponse);
+
+            verify(userRepository, times(1)).findWithCardsByEmail(user.getEmail());
+        }
+
+        @Test
+        @DisplayName("Should load profile without cards when getting user by email without cards")
+        void givenExistingUser_whenGetProfileByEmail_thenLoadsWithoutCards() {
+            // Given
+            var user = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST@EMAIL");
+            var profile = new UserResponse(user.getUserId(), user.getName(), user.getSurname(), user.getBirthDate(),
+                    user.getEmail(), null);
+
+            // When
+            when(userRepository.findUserByEmail(user.getEmail())).thenReturn(Optional.of(user));
+            when(userMapper.toProfileResponse(user)).thenReturn(profile);
+
+            var serviceResponse = userService.getByEmail(user.getEmail(), false);
+
+            // Then
+            assertEquals(profile, serviceResponse);
+
+            verify(userRepository, never()).findWithCardsByEmail(any());
+            verify(versionedCacheWriter, times(1)).put(UserServiceImpl.USER_PROFILE_CACHE, user.getUserId(), profile,
+                    user.getVersion());
         }
     }
 
@@ -245,14 +453,16 @@ class UserServiceImplTest {
         void givenExistingUsers_whenGetAllPaged_thenReturnsPageOfUserResponses() {
             // Given
             var user = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST@EMAIL");
-            var response = createUserResponse(user);
+            var card = new CardResponse(UUID.randomUUID(), user.getUserId(), "TEST_NUMBER", "TEST_HOLDER",
+                    LocalDate.now().plusDays(1));
+            var response = new UserResponse(user.getUserId(), user.getName(), user.getSurname(), user.getBirthDate(),
+                    user.getEmail(), List.of(card));
             var pageable = PageRequest.of(0, 10);
-            var ids = new PageImpl<>(List.of(user.getId()), pageable, 1);
+            var rows = List.of(new CountedId(user.getId(), 1));
 
             // When
-            when(userRepository.findUserIds(pageable)).thenReturn(ids);
-            when(userRepository.findAllWithCardsByIds(ids.toList())).thenReturn(List.of(user));
-            when(userMapper.toResponse(user)).thenReturn(response);
+            when(userRepository.findUserIds(pageable)).thenReturn(rows);
+            when(userRepository.findResponseRowsByIds(List.of(user.getId()))).thenReturn(List.of(createRow(user, card)));
 
             var serviceResponse = userService.getAllPaged(pageable);
 
@@ -261,30 +471,191 @@ class UserServiceImplTest {
             assertEquals(response, serviceResponse.getContent().get(0));
 
             verify(userRepository, times(1)).findUserIds(pageable);
-            verify(userRepository, times(1)).findAllWithCardsByIds(List.of(user.getId()));
-            verify(userMapper, times(1)).toResponse(user);
+            verify(userRepository, times(1)).findResponseRowsByIds(List.of(user.getId()));
+            verify(userRepository, never()).findAllWithCardsByIds(any());
+            verify(userMapper, never()).toResponse(any());
         }
 
         @Test
-        @DisplayName("Should return empty page when there's no existing users")
+        @DisplayName("Should return empty page without count query when there's no existing users")
         void givenNoUsers_whenGetAllPaged_thenReturnsEmptyPage() {
             // Given
             var pageable = PageRequest.of(0, 10);
-            Page<UUID> ids = new PageImpl<>(List.of(), pageable, 1);
 
             // When
-            when(userRepository.findUserIds(pageable)).thenReturn(ids);
-            when(userRepository.findAllWithCardsByIds(ids.toList())).thenReturn(List.of());
+            when(userRepository.findUserIds(pageable)).thenReturn(List.of());
+            when(userRepository.findResponseRowsByIds(List.of())).thenReturn(List.of());
 
             var serviceResponse = userService.getAllPaged(pageable);
 
             // Then
-            assertEquals(1, serviceResponse.getTotalElements());
+            assertEquals(0, serviceResponse.getTotalElements());
 
             verify(userRepository, times(1)).findUserIds(pageable);
-            verify(userRepository, times(1)).findAllWithCardsByIds(List.of());
+            verify(userRepository, times(1)).findResponseRowsByIds(List.of());
+            verify(userRepository, never()).count();
             verify(userMapper, never()).toResponse(any());
         }
+
+        @Test
+        @DisplayName("Should count users when requested page is past the last one")
+        void givenPagePastEnd_whenGetAllPaged_thenReturnsEmptyPageWithTotal() {
+            // Given
+            var pageable = PageRequest.of(5, 10);
+
+            // When
+            when(userRepository.findUserIds(pageable)).thenReturn(List.of());
+            when(userRepository.findResponseRowsByIds(List.of())).thenReturn(List.of());
+            when(userRepository.count()).thenReturn(12L);
+
+            var serviceResponse = userService.getAllPaged(pageable);
+
+            // Then
+            assertEquals(12, serviceResponse.getTotalElements());
+            assertEquals(0, serviceResponse.getNumberOfElements());
+        }
+
+        @Test
+        @DisplayName("Should return slice without running count query when count is NONE")
+        void givenCountNone_whenGetAllPaged_thenReturnsSliceWithoutTotal() {
+            // Given
+            var user = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST@EMAIL");
+            var pageable = PageRequest.of(0, 1);
+            var ids = new SliceImpl<>(List.of(user.getId()), pageable, true);
+
+            // When
+            when(userRepository.findUserIdSlice(pageable)).thenReturn(ids);
+            when(userRepository.findResponseRowsByIds(ids.getContent())).thenReturn(List.of(createRow(user, null)));
+
+            var serviceResponse = userService.getAllPaged(pageable, PageCount.NONE);
+
+            // Then
+            assertFalse(serviceResponse instanceof Page);
+            assertTrue(serviceResponse.hasNext());
+            assertEquals(1, serviceResponse.getNumberOfElements());
+
+            verify(userRepository, never()).findUserIds(any());
+            verify(userRepository, never()).count();
+            verify(userRepository, never()).estimateCount();
+        }
+
+        @Test
+        @DisplayName("Should take total from table statistics when count is ESTIMATED")
+        void givenCountEstimated_whenGetAllPaged_thenReturnsEstimatedTotal() {
+            // Given
+            var user = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST@EMAIL");
+            var pageable = PageRequest.of(0, 1);
+            var ids = new SliceImpl<>(List.of(user.getId()), pageable, true);
+
+            // When
+            when(userRepository.findUserIdSlice(pageable)).thenReturn(ids);
+            when(userRepository.findResponseRowsByIds(ids.getContent())).thenReturn(List.of(createRow(user, null)));
+            when(userRepository.estimateCount()).thenReturn(1000L);
+
+            var serviceResponse = (Page<UserResponse>) userService.getAllPaged(pageable, PageCount.ESTIMATED);
+
+            // Then
+            assertEquals(1000, serviceResponse.getTotalElements());
+
+            verify(userRepository, never()).count();
+        }
+
+        @Test
+        @DisplayName("Should fall back to exact count when table has not been analyzed yet")
+        void givenNoStatistics_whenGetAllPagedEstimated_thenReturnsExactTotal() {
+            // Given
+            var pageable = PageRequest.of(0, 10);
+            Slice<UUID> ids = new SliceImpl<>(List.of(), pageable, false);
+
+            // When
+            when(userRepository.findUserIdSlice(pageable)).thenReturn(ids);
+            when(userRepository.findResponseRowsByIds(List.of())).thenReturn(List.of());
+            when(userRepository.estimateCount()).thenReturn(-1L);
+            when(userRepository.count()).thenReturn(0L);
+
+            var serviceResponse = (Page<UserResponse>) userService.getAllPaged(pageable, PageCount.ESTIMATED);
+
+            // Then
+            assertEquals(0, serviceResponse.getTotalElements());
+
+            verify(userRepository, times(1)).count();
+        }
+
+        @Test
+        @DisplayName("Should not report estimated total below rows already returned")
+        void givenStaleEstimate_whenGetAllPagedEstimated_thenTotalCoversReturnedRows() {
+            // Given
+            var user = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST@EMAIL");
+            var pageable = PageRequest.of(3, 1);
+            var ids = new SliceImpl<>(List.of(user.getId()), pageable, true);
+
+            // When
+            when(userRepository.findUserIdSlice(pageable)).thenReturn(ids);
+            when(userRepository.findResponseRowsByIds(ids.getContent())).thenReturn(List.of(createRow(user, null)));
+            when(userRepository.estimateCount()).thenReturn(2L);
+
+            var serviceResponse = (Page<UserResponse>) userService.getAllPaged(pageable, PageCount.ESTIMATED);
+
+            // Then
+            assertEquals(5, serviceResponse.getTotalElements());
+            assertTrue(serviceResponse.hasNext());
+        }
+    }
+
+    @Nested
+    @DisplayName("Get slice of users by cursor")
+    class GetAllByCursorTests {
+        @Test
+        @DisplayName("Should return first slice in id order with cursor of its last user when more users exist")
+        void givenMoreUsersThanSize_whenGetAllByCursor_thenReturnsSliceWithNextCursor() {
+            // Given
+            var first = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST1@EMAIL");
+            var second = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST2@EMAIL");
+            var ids = List.of(first.getId(), second.getId(), UUID.randomUUID());
+
+            // When
+            when(userRepository.findFirstUserIds(Limit.of(3))).thenReturn(ids);
+            when(userRepository.findResponseRowsByIds(ids.subList(0, 2)))
+                    .thenReturn(List.of(createRow(second, null), createRow(first, null)));
+
+            var serviceResponse = userService.getAllByCursor("", 2);
+
+            // Then
+            assertEquals(List.of(first.getUserId(), second.getUserId()),
+                    serviceResponse.content().stream().map(UserResponse::userId).toList());
+            assertEquals(KeysetCursor.encode(second.getId()), serviceResponse.nextCursor());
+
+            verify(userRepository, never()).findUserIdsAfter(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should seek after cursor and return no next cursor on last slice")
+        void givenCursor_whenGetAllByCursor_thenSeeksAfterItAndReturnsLastSlice() {
+            // Given
+            var after = UUID.randomUUID();
+            var user = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST@EMAIL");
+
+            // When
+            when(userRepository.findUserIdsAfter(after, Limit.of(3))).thenReturn(List.of(user.getId()));
+            when(userRepository.findResponseRowsByIds(List.of(user.getId()))).thenReturn(List.of(createRow(user, null)));
+
+            var serviceResponse = userService.getAllByCursor(KeysetCursor.encode(after), 2);
+
+            // Then
+            assertEquals(1, serviceResponse.content().size());
+            assertNull(serviceResponse.nextCursor());
+
+            verify(userRepository, never()).findFirstUserIds(any());
+        }
+
+        @Test
+        @DisplayName("Should throw InvalidCursorException when cursor is malformed")
+        void givenMalformedCursor_whenGetAllByCursor_thenThrowsInvalidCursorException() {
+            // Given, When, Then
+            assertThrows(InvalidCursorException.class, () -> userService.getAllByCursor("NOT_A_CURSOR", 2));
+
+            verifyNoInteractions(userRepository);
+        }
     }
 
     @Nested
@@ -342,6 +713,75 @@ class UserServiceImplTest {
             );
         }
 
+        @Test
+        @DisplayName("Should evict both user views at new version and old email index entry when email is changing")
+        void givenChangingEmail_whenUpdate_thenEvictsOldEmailIndex() {
+            // Given
+            var user = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST@EMAIL");
+            var request = createUserUpdateRequest("NEW_EMAIL");
+
+            // When
+            when(userRepository.findUserByUserId(user.getUserId())).thenReturn(Optional.of(user));
+            when(userRepository.existsByEmail(request.email())).thenReturn(false);
+            doAnswer(invocation -> {
+                user.setEmail(request.email());
+                return null;
+            }).when(userMapper).update(request, user);
+
+            when(userRepository.findVersionById(user.getId())).thenReturn(2L);
+
+            userService.update(user.getUserId(), request);
+
+            // Then
+            verify(cacheInvalidator, times(1)).evict(
+                    List.of(
+                            new CacheKey(UserServiceImpl.USER_CACHE, user.getUserId()),
+                            new CacheKey(UserServiceImpl.USER_PROFILE_CACHE, user.getUserId())
+                    ),
+                    2L
+            );
+            verify(cacheInvalidator, times(1)).evict(new CacheKey(UserServiceImpl.USER_EMAIL_CACHE, "TEST@EMAIL"));
+        }
+
+        @Test
+        @DisplayName("Should replace cached user and email index entries when write-through is enabled")
+        void givenWriteThroughAndChangingEmail_whenUpdate_thenWritesNewEntriesAndDropsOldEmail() {
+            // Given
+            var user = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST@EMAIL");
+            var request = createUserUpdateRequest("NEW_EMAIL");
+            var response = new UserResponse(user.getUserId(), user.getName(), user.getSurname(),
+                    user.getBirthDate(), request.email(), List.of());
+            var profile = new UserResponse(user.getUserId(), user.getName(), user.getSurname(),
+                    user.getBirthDate(), request.email(), null);
+            ReflectionTestUtils.setField(userService, "writeThrough", true);
+
+            // When
+            when(userRepository.findUserByUserId(user.getUserId())).thenReturn(Optional.of(user));
+            when(userRepository.existsByEmail(request.email())).thenReturn(false);
+            doAnswer(invocation -> {
+                user.setEmail(request.email());
+                return null;
+            }).when(userMapper).update(request, user);
+            when(userMapper.toResponse(user)).thenReturn(response);
+            when(userRepository.findVersionById(user.getId())).thenReturn(1L);
+
+            userService.update(user.getUserId(), request);
+
+            // Then
+            verify(userRepository, times(1)).incrementVersion(user.getId());
+            verify(cacheInvalidator, times(1)).writeThrough(
+                    List.of(
+                            new CacheEntry(new CacheKey(UserServiceImpl.USER_CACHE, user.getUserId()), response, 1),
+                            new CacheEntry(new CacheKey(UserServiceImpl.USER_PROFILE_CACHE, user.getUserId()),
+                                    profile, 1),
+                            CacheEntry.of(new CacheKey(UserServiceImpl.USER_EMAIL_CACHE, request.email()),
+                                    user.getUserId())
+                    ),
+                    List.of(new CacheKey(UserServiceImpl.USER_EMAIL_CACHE, "TEST@EMAIL"))
+            );
+            verify(cacheInvalidator, never()).evict(any(CacheKey[].class));
+        }
+
         @Test
         @DisplayName("Should not update user when user exists, email is changing and email exists")
         void givenExistingUserWithChangingEmailAndEmailExists_whenUpdate_thenThrowsUserEmailAlreadyExistsException() {
@@ -418,22 +858,29 @@ class UserServiceImplTest {
         }
 
         @Test
-        @DisplayName("Should evict user cache when deleting existing user")
+        @DisplayName("Should evict user and card caches and leave tombstone when deleting existing user")
         void givenExistingUser_whenDelete_thenEvictsUserCache() {
             // Given
             var user = createUser("TEST_NAME", "TEST_SURNAME", LocalDate.now(), "TEST@EMAIL");
+            var card = new Card(UUID.randomUUID(), user, "TEST_NUMBER", "TEST_HOLDER", LocalDate.now().plusDays(1));
+            user.getCards().add(card);
 
             // When
             when(userRepository.findUserByUserId(user.getUserId())).thenReturn(Optional.of(user));
-            when(cacheManager.getCache(UserServiceImpl.USER_CACHE)).thenReturn(cache);
 
             userService.delete(user.getUserId());
 
             // Then
-            verify(cacheManager, times(1)).getCache(UserServiceImpl.USER_CACHE);
-            verify(cache, times(1)).evict(user.getUserId());
-            verify(cache, times(1)).evict(user.getEmail());
+            verify(cacheInvalidator, times(1)).evict(List.of(
+                    new CacheKey(UserServiceImpl.USER_CACHE, user.getUserId()),
+                    new CacheKey(UserServiceImpl.USER_PROFILE_CACHE, user.getUserId()),
+                    new CacheKey(UserServiceImpl.USER_EMAIL_CACHE, user.getEmail()),
+                    new CacheKey(CardServiceImpl.CARD_CACHE, card.getId().toString())
+            ));
             verify(userRepository, times(1)).deleteByUserId(user.getUserId());
+            verify(versionedCacheWriter, times(1)).tombstone(UserServiceImpl.USER_CACHE, user.getUserId());
+            verify(versionedCacheWriter, times(1)).tombstone(UserServiceImpl.USER_PROFILE_CACHE, user.getUserId());
+            verify(versionedCacheWriter, times(1)).tombstone(CardServiceImpl.CARD_CACHE, card.getId().toString());
         }
     }
 
@@ -473,6 +920,29 @@ class UserServiceImplTest {
         }
     }
 
+    @Nested
+    @DisplayName("Refresh cards of user")
+    class RefreshCardsOfTests {
+        @Test
+        @DisplayName("Should evict user with cards at new version without loading user")
+        void givenUserId_whenRefreshCardsOf_thenEvictsUserWithCardsAtNewVersion() {
+            // Given
+            var userId = UUID.randomUUID().toString();
+            ReflectionTestUtils.setField(userService, "writeThrough", true);
+
+            // When
+            when(userRepository.findVersionByUserId(userId)).thenReturn(3L);
+
+            userService.refreshCardsOf(userId);
+
+            // Then
+            verify(userRepository, times(1)).incrementVersionByUserId(userId);
+            verify(cacheInvalidator, times(1)).evict(List.of(new CacheKey(UserServiceImpl.USER_CACHE, userId)), 3L);
+            verify(userRepository, never()).findUserByUserId(any());
+            verify(cacheInvalidator, never()).writeThrough(any(), any());
+        }
+    }
+
     private UserCreateRequest createUserCreateRequest() {
         return new UserCreateRequest(
                 UUID.randomUUID().toString(),
@@ -500,7 +970,23 @@ class UserServiceImplTest {
                 surname,
                 birthDate,
                 email,
-                null
+                new ArrayList<>(),
+                0
+        );
+    }
+
+    private UserCardRow createRow(User user, CardResponse card) {
+        return new UserCardRow(
+                user.getId(),
+                user.getUserId(),
+                user.getName(),
+                user.getSurname(),
+                user.getBirthDate(),
+                user.getEmail(),
+                card != null ? card.id() : null,
+                card != null ? card.number() : null,
+                card != null ? card.holder() : null,
+                card != null ? card.expirationDate() : null
         );
     }
 